@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread request execution under the same load.
+#
+# Starts the packaged jar once per mode (spring.threads.virtual.enabled=false/true) against the
+# databases configured by the usual environment (SPRING_DATASOURCE_*, SPRING_DATA_MONGODB_URI, JWT_SECRET),
+# drives each endpoint with `hey` and writes one summary per mode and endpoint to loadtest/results/.
+# Run on JDK 21+ (virtual threads are ignored on older JDKs, see the VirtualThreadsReport line at startup).
+#
+#   mvn -B package -DskipTests
+#   TOKEN=<admin or doctor JWT> APPOINTMENT_ID=<id with a prescription> loadtest/thread-modes.sh
+#
+# Knobs: CONCURRENCY (default 400, well above server.tomcat.threads.max), DURATION (default 60s),
+# DB_POOL_SIZE (default 20, identical in both modes so only the request threading differs).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/*.jar | grep -v plain | head -n 1)
+PORT=${PORT:-8080}
+BASE="http://localhost:${PORT}/api"
+CONCURRENCY=${CONCURRENCY:-400}
+DURATION=${DURATION:-60s}
+export DB_POOL_SIZE=${DB_POOL_SIZE:-20}
+OUT=loadtest/results
+mkdir -p "$OUT"
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest"; exit 1; }
+
+# name|url pairs; MySQL-bound reads always, the Mongo-bound read only when a token is given
+ENDPOINTS=(
+  "directory|${BASE}/doctor?limit=100"
+  "filter|${BASE}/doctor/filter/null/AM/null"
+)
+if [[ -n "${TOKEN:-}" && -n "${APPOINTMENT_ID:-}" ]]; then
+  ENDPOINTS+=("prescription|${BASE}/prescription/${APPOINTMENT_ID}/${TOKEN}")
+fi
+
+for MODE in platform virtual; do
+  VIRTUAL=$([[ $MODE == virtual ]] && echo true || echo false)
+  java -jar "$JAR" --spring.profiles.active=prod --server.port="$PORT" \
+       --spring.threads.virtual.enabled="$VIRTUAL" > "$OUT/$MODE-server.log" 2>&1 &
+  PID=$!
+  trap 'kill $PID 2>/dev/null || true' EXIT
+
+  until curl -fs "http://localhost:${PORT}/actuator/health" >/dev/null; do
+    kill -0 $PID 2>/dev/null || { echo "$MODE: server exited, see $OUT/$MODE-server.log"; exit 1; }
+    sleep 1
+  done
+
+  for ENTRY in "${ENDPOINTS[@]}"; do
+    NAME=${ENTRY%%|*}
+    URL=${ENTRY#*|}
+    hey -z 10s -c "$CONCURRENCY" "$URL" > /dev/null    # warm-up: JIT, pools, caches
+    hey -z "$DURATION" -c "$CONCURRENCY" "$URL" > "$OUT/$MODE-$NAME.txt"
+    echo "$MODE $NAME: $(grep -E 'Requests/sec' "$OUT/$MODE-$NAME.txt" | xargs)"
+  done
+
+  kill $PID
+  wait $PID 2>/dev/null || true
+done
+
+echo "Summaries (latency distribution, status codes) are in $OUT/"
@@ -0,0 +1,63 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapping cost of entity -> AppointmentDTO, on detached entities so no database is involved
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AppointmentDtoBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private List<Appointment> appointments;
+
+    @Setup(Level.Trial)
+    public void build() {
+        LocalDateTime start = LocalDateTime.now().plusDays(7).withHour(9).withMinute(0);
+        appointments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setId((long) i);
+            doctor.setName("Doctor " + i);
+            Patient patient = new Patient();
+            patient.setId((long) i);
+            patient.setName("Patient " + i);
+            patient.setEmail("patient" + i + "@example.com");
+            patient.setPhone(String.format("%010d", i));
+            patient.setAddress(i + " Main Street");
+
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i);
+            appointment.setDoctor(doctor);
+            appointment.setPatient(patient);
+            appointment.setAppointmentTime(start.plusHours(i % 8));
+            appointments.add(appointment);
+        }
+    }
+
+    @Benchmark
+    public List<AppointmentDTO> mapToDto() {
+        return appointments.stream()
+                .map(AppointmentDTO::new)
+                .toList();
+    }
+}
@@ -0,0 +1,38 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.CacheConfig;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+// Minimal application for the benchmarks: the real services and JPA repositories on an embedded H2 database, no web layer or Mongo
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        MongoAutoConfiguration.class,
+        MongoDataAutoConfiguration.class,
+        MongoRepositoriesAutoConfiguration.class
+})
+@EntityScan(basePackageClasses = Doctor.class)
+@EnableJpaRepositories(basePackageClasses = DoctorRepository.class)
+@Import({
+        CacheConfig.class,
+        DoctorService.class,
+        PatientService.class,
+        UtilityService.class,
+        TokenService.class,
+        VerifiedTokenCache.class,
+        AvailabilityIndex.class,
+        NameSearchIndex.class,
+        Outbox.class,
+        OutboxDispatcher.class,
+        DoctorDirectorySnapshot.class
+})
+public class BenchmarkApplication {
+}
@@ -0,0 +1,43 @@
+package com.project.back_end.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DoctorServiceBenchmark {
+
+    @Benchmark
+    public Map<String, Object> filterBySpecialtyAndTime(SeededContext ctx) {
+        return ctx.doctorService.filterDoctorsByNameSpecialtyandTime("null", "Cardiology", "PM");
+    }
+
+    @Benchmark
+    public Map<String, Object> filterByNameSpecialtyAndTime(SeededContext ctx) {
+        return ctx.doctorService.filterDoctorsByNameSpecialtyandTime("Doctor 1", "Dermatology", "AM");
+    }
+
+    // selective substring search, answered by NameSearchIndex
+    @Benchmark
+    public Map<String, Object> findDoctorByName(SeededContext ctx) {
+        return ctx.doctorService.findDoctorByName("octor 4711");
+    }
+
+    @Benchmark
+    public Map<String, Object> filterByTimeOnly(SeededContext ctx) {
+        return ctx.doctorService.filterDoctorsByNameSpecialtyandTime("null", "null", "PM");
+    }
+
+    @Benchmark
+    public List<String> getDoctorAvailability(SeededContext ctx) {
+        Long doctorId = ctx.doctorIds.get(ThreadLocalRandom.current().nextInt(ctx.doctorIds.size()));
+        return ctx.doctorService.getDoctorAvailability(doctorId, ctx.day);
+    }
+}
@@ -0,0 +1,143 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring context on an embedded H2 database, seeded with {@code size} doctors and {@code size} appointments.
+ * Shared by every benchmark that goes through the repositories.
+ */
+@State(Scope.Benchmark)
+public class SeededContext {
+
+    static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics"};
+    static final List<String> SLOTS = List.of(
+            "08:00-09:00", "09:00-10:00", "10:00-11:00", "11:00-12:00",
+            "13:00-14:00", "14:00-15:00", "15:00-16:00", "16:00-17:00");
+
+    private static final int CHUNK = 1000;
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    ConfigurableApplicationContext context;
+    DoctorService doctorService;
+    UtilityService utilityService;
+    TokenService tokenService;
+
+    LocalDate day;
+    List<Long> doctorIds = new ArrayList<>();
+    String patientEmail;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "jwt.secret=0123456789ABCDEF0123456789ABCDEF",
+                        "api.path=/")
+                .run();
+        doctorService = context.getBean(DoctorService.class);
+        utilityService = context.getBean(UtilityService.class);
+        tokenService = context.getBean(TokenService.class);
+        day = LocalDate.now().plusDays(7);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private void seed() {
+        DoctorRepository doctors = context.getBean(DoctorRepository.class);
+        PatientRepository patients = context.getBean(PatientRepository.class);
+        AppointmentRepository appointments = context.getBean(AppointmentRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        int patientCount = Math.max(1, size / 10);
+        List<Patient> savedPatients = new ArrayList<>(patientCount);
+        for (int from = 0; from < patientCount; from += CHUNK) {
+            List<Patient> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(patientCount, from + CHUNK); i++) {
+                chunk.add(patient(i));
+            }
+            savedPatients.addAll(tx.execute(status -> patients.saveAll(chunk)));
+        }
+        patientEmail = savedPatients.get(0).getEmail();
+
+        for (int from = 0; from < size; from += CHUNK) {
+            List<Doctor> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(size, from + CHUNK); i++) {
+                chunk.add(doctor(i));
+            }
+            List<Doctor> saved = tx.execute(status -> doctors.saveAll(chunk));
+
+            List<Appointment> booked = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                Doctor doctor = saved.get(i);
+                doctorIds.add(doctor.getId());
+                booked.add(appointment(doctor, savedPatients.get((from + i) % patientCount), from + i));
+            }
+            tx.execute(status -> appointments.saveAll(booked));
+        }
+        // seeding bypasses the services, so load the name index from the tables like a scheduled rebuild would
+        context.getBean(NameSearchIndex.class).rebuild();
+    }
+
+    private static Patient patient(int i) {
+        Patient patient = new Patient();
+        patient.setName("Patient " + i);
+        patient.setEmail("patient" + i + "@example.com");
+        patient.setPassword("password");
+        patient.setPhone(String.format("%010d", i));
+        patient.setAddress(i + " Main Street");
+        return patient;
+    }
+
+    private static Doctor doctor(int i) {
+        Doctor doctor = new Doctor();
+        doctor.setName("Doctor " + i);
+        doctor.setSpecialty(SPECIALTIES[i % SPECIALTIES.length]);
+        doctor.setEmail("doctor" + i + "@example.com");
+        doctor.setPassword("password");
+        doctor.setPhone(String.format("%010d", i));
+        // alternate morning-only and full-day schedules so the AM/PM filters have work to do
+        doctor.setAvailableTimes(new ArrayList<>(i % 2 == 0 ? SLOTS.subList(0, 4) : SLOTS));
+        return doctor;
+    }
+
+    private Appointment appointment(Doctor doctor, Patient patient, int i) {
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        String start = SLOTS.get(i % 4).split("-")[0];
+        appointment.setAppointmentTime(day.atTime(Integer.parseInt(start.substring(0, 2)), 0));
+        appointment.setStatus(0);
+        return appointment;
+    }
+}
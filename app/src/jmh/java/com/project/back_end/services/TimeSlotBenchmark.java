@@ -0,0 +1,37 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.TimeSlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Slot parsing in isolation, without any repository work
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimeSlotBenchmark {
+
+    private final String[] labels = SeededContext.SLOTS.toArray(new String[0]);
+    private final int[] slots = SeededContext.SLOTS.stream().mapToInt(TimeSlot::parse).toArray();
+
+    // the AM/PM mask computed whenever a Doctor's slots are written (the filters themselves run in SQL)
+    @Benchmark
+    public int periodsOf() {
+        return TimeSlot.periodsOf(slots);
+    }
+
+    // the one-off cost paid when a Doctor's slots are first read
+    @Benchmark
+    public int parseSlots() {
+        int checksum = 0;
+        for (String label : labels) {
+            checksum ^= TimeSlot.parse(label);
+        }
+        return checksum;
+    }
+}
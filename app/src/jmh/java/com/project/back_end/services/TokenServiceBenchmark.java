@@ -0,0 +1,41 @@
+package com.project.back_end.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenServiceBenchmark {
+
+    private String token;
+
+    @Setup
+    public void issueToken(SeededContext ctx) {
+        token = ctx.tokenService.generateToken(ctx.patientEmail, "patient");
+    }
+
+    @Benchmark
+    public String generateToken(SeededContext ctx) {
+        return ctx.tokenService.generateToken(ctx.patientEmail, "patient");
+    }
+
+    @Benchmark
+    public boolean authenticateUserFromToken(SeededContext ctx) {
+        return ctx.tokenService.authenticateUserFromToken(token);
+    }
+
+    // signature check + repository lookup on every call, i.e. the verified-token cache always misses
+    @Benchmark
+    public boolean authenticateUserFromTokenColdCache(SeededContext ctx) {
+        ctx.tokenService.invalidateUser(ctx.patientEmail);
+        return ctx.tokenService.authenticateUserFromToken(token);
+    }
+}
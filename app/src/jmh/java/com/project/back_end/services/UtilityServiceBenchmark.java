@@ -0,0 +1,27 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UtilityServiceBenchmark {
+
+    @Benchmark
+    public int validateAppointment(SeededContext ctx) {
+        Doctor doctor = new Doctor();
+        doctor.setId(ctx.doctorIds.get(ThreadLocalRandom.current().nextInt(ctx.doctorIds.size())));
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        // 11:00 is never seeded as booked, so this exercises the full lookup
+        appointment.setAppointmentTime(ctx.day.atTime(11, 0));
+        return ctx.utilityService.validateAppointment(appointment);
+    }
+}
@@ -0,0 +1,17 @@
+package com.project.back_end.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// The authenticated caller of a request, resolved once from the JWT and shared by controllers and services
+@Getter
+@AllArgsConstructor
+public class AuthPrincipal {
+    private final String email;
+    private final String role;
+    private final Long id;
+
+    public boolean hasRole(String expected) {
+        return role != null && role.equalsIgnoreCase(expected);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -16,4 +17,9 @@ public class DoctorDTO {
     private String email;
     private String phone;
     private List<String> availableTimes;
+
+    // Used by the JPQL constructor projection; available times are attached afterwards in one batched query
+    public DoctorDTO(Long id, String name, String specialty, String email, String phone) {
+        this(id, name, specialty, email, phone, new ArrayList<>());
+    }
 }
@@ -0,0 +1,14 @@
+package com.project.back_end.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Request body of the bulk status endpoint: set `status` on every appointment in `ids`
+@Getter
+@Setter
+public class StatusUpdate {
+    private List<Long> ids;
+    private int status;
+}
@@ -0,0 +1,73 @@
+package com.project.back_end.config;
+
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.services.TokenService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.WebUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves an {@link AuthPrincipal} controller argument from the request's JWT.
+ * <p>
+ * The token is taken from the {@code {token}} path variable, the {@code Authorization} header
+ * (with or without the {@code Bearer } prefix) or the {@code token} cookie, in that order.
+ * The result is stored on the request so the token is verified at most once per request.
+ * The argument is null when there is no token or it does not belong to an existing user.
+ */
+public class AuthPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String REQUEST_ATTRIBUTE = AuthPrincipal.class.getName();
+
+    private final TokenService tokenService;
+
+    public AuthPrincipalArgumentResolver(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public boolean supportsParameter(@NonNull MethodParameter parameter) {
+        return AuthPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object resolveArgument(@NonNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  @NonNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if (request == null) {
+            return null;
+        }
+        Object resolved = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (resolved == null) {
+            String token = extractToken(request);
+            resolved = Optional.ofNullable(token != null ? tokenService.resolvePrincipal(token) : null);
+            request.setAttribute(REQUEST_ATTRIBUTE, resolved);
+        }
+        return ((Optional<AuthPrincipal>) resolved).orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractToken(HttpServletRequest request) {
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables != null && pathVariables.get("token") != null) {
+            return pathVariables.get("token");
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && !authHeader.isBlank()) {
+            return authHeader.startsWith("Bearer ") ? authHeader.substring(7) : authHeader;
+        }
+        Cookie cookie = WebUtils.getCookie(request, "token");
+        return cookie != null ? cookie.getValue() : null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.back_end.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caffeine-backed Spring caches for doctor DTOs.
+ * <p>
+ * The caches are declared up front so the actuator binds their hit/miss metrics at startup
+ * (the spec must keep {@code recordStats} for those to be populated). The manager is
+ * transaction-aware: puts and evictions made inside a transaction only apply after it commits,
+ * so a rolled back update never evicts and a reader never caches uncommitted data.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DOCTOR_BY_ID = "doctorById";
+    public static final String DOCTOR_BY_EMAIL = "doctorByEmail";
+    // keyset pages of the directory, keyed by "afterId:limit"
+    public static final String DOCTOR_DIRECTORY = "doctorDirectory";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${doctor.cache.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}") String spec) {
+        CaffeineCacheManager manager = new CaffeineCacheManager(DOCTOR_BY_ID, DOCTOR_BY_EMAIL, DOCTOR_DIRECTORY);
+        manager.setCacheSpecification(spec);
+        manager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+}
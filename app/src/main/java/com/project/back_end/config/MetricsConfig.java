@@ -0,0 +1,22 @@
+package com.project.back_end.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@code @Timed} on Spring beans. The service classes are annotated at class level, so every
+ * public method called through the proxy is recorded as {@value #SERVICE_TIMER} tagged with class and method.
+ * Repository calls are timed by Spring Boot as {@code spring.data.repository.invocations}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "app.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
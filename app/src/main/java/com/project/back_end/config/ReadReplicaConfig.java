@@ -0,0 +1,85 @@
+package com.project.back_end.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary/replica split, active only when {@code datasource.replica.url} is set.
+ * <p>
+ * The primary pool is built from the usual {@code spring.datasource.*} properties, the replica pool
+ * from {@code datasource.replica.*} (credentials default to the primary's, {@code datasource.replica.hikari.*}
+ * overrides the shared Hikari settings). Both sit behind {@link ReplicaRoutingDataSource}, wrapped in a
+ * {@link LazyConnectionDataSourceProxy} so read-only transactions are routed before a connection is taken.
+ * Without the property the auto-configured single datasource is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.url")
+public class ReadReplicaConfig {
+
+    private static final String REPLICA_PREFIX = "datasource.replica";
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Value("${datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                               @Value("${datasource.replica.lag-column:Seconds_Behind_Source}") String lagColumn,
+                                               @Value("${datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                               @Value("${datasource.replica.lag-check-interval-ms:5000}") long checkIntervalMillis,
+                                               DataSourceProperties properties, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaPool(properties, environment, meterRegistry),
+                lagQuery, lagColumn, maxLagSeconds, checkIntervalMillis);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("datasource.replica.lag.seconds", monitor, ReplicaLagMonitor::getLagSeconds)
+                .description("Replication lag last reported by the replica, -1 when unknown")
+                .register(registry));
+        return monitor;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             ReplicaLagMonitor lagMonitor,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+        return new ReplicaRoutingDataSource(primary, lagMonitor.getDataSource(), lagMonitor);
+    }
+
+    // the datasource JPA, JdbcTemplate and the transaction manager use
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource replicaPool(DataSourceProperties properties, Environment environment,
+                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource replica = new HikariDataSource();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        binder.bind(REPLICA_PREFIX + ".hikari", Bindable.ofInstance(replica));
+        replica.setJdbcUrl(environment.getRequiredProperty(REPLICA_PREFIX + ".url"));
+        replica.setUsername(environment.getProperty(REPLICA_PREFIX + ".username", properties.determineUsername()));
+        replica.setPassword(environment.getProperty(REPLICA_PREFIX + ".password", properties.determinePassword()));
+        if (properties.getDriverClassName() != null) {
+            replica.setDriverClassName(properties.getDriverClassName());
+        }
+        replica.setReadOnly(true);
+        replica.setPoolName("replica");
+        meterRegistry.ifAvailable(replica::setMetricRegistry);
+        return replica;
+    }
+}
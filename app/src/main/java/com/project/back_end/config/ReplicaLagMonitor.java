@@ -0,0 +1,75 @@
+package com.project.back_end.config;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Polls the replica's replication lag and decides whether read-only transactions may use it.
+ * <p>
+ * The replica is unusable until the first successful check, when the lag query fails, when it
+ * reports a null lag (replication stopped) and while the lag exceeds the configured maximum.
+ * An empty result (the server is not a configured replica, e.g. a managed read endpoint) counts as no lag.
+ * <p>
+ * {@link #staleWindow()} bounds how long after a commit a routed read can still miss it: the maximum lag
+ * plus one check interval, as the lag may have grown since the last check.
+ */
+public class ReplicaLagMonitor {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+    private final long checkIntervalMillis;
+
+    private volatile boolean usable;
+    // -1 while unknown
+    private volatile long lagSeconds = -1;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, String lagColumn, long maxLagSeconds, long checkIntervalMillis) {
+        this.dataSource = replica;
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:5000}")
+    public void check() {
+        try {
+            List<Long> rows = replica.query(lagQuery, (rs, n) -> {
+                long lag = rs.getLong(lagColumn);
+                return rs.wasNull() ? null : lag;
+            });
+            Long lag = rows.isEmpty() ? Long.valueOf(0) : rows.get(0);
+            lagSeconds = lag != null ? lag : -1;
+            usable = lag != null && lag <= maxLagSeconds;
+        } catch (DataAccessException e) {
+            System.out.println("Replica lag check failed, reading from primary: " + e.getMessage());
+            lagSeconds = -1;
+            usable = false;
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public Duration staleWindow() {
+        return Duration.ofSeconds(maxLagSeconds).plusMillis(checkIntervalMillis);
+    }
+}
@@ -0,0 +1,112 @@
+package com.project.back_end.config;
+
+import com.mongodb.client.MongoClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Startup report for the virtual-thread execution mode ({@code spring.threads.virtual.enabled}).
+ * <p>
+ * With the mode on, Spring Boot runs Tomcat requests, {@code @Async} work and {@code @Scheduled} jobs on
+ * virtual threads, but only on JDK 21+. A virtual thread that blocks inside a {@code synchronized} block
+ * pins its carrier thread, so the report also checks the two drivers every request blocks on:
+ * MySQL Connector/J replaced its synchronized blocks with locks in 9.0, the MongoDB driver in 4.11.
+ * Older versions still work but serialize on the carriers under load.
+ */
+@Component
+public class VirtualThreadsReport {
+
+    private static final int MYSQL_LOCK_BASED_MAJOR = 9;
+    private static final int[] MONGO_LOCK_BASED = {4, 11};
+
+    private final boolean enabled;
+
+    public VirtualThreadsReport(@Value("${spring.threads.virtual.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        int jdk = Runtime.version().feature();
+        if (!enabled) {
+            System.out.println("Threads: platform threads (spring.threads.virtual.enabled=false), JDK " + jdk);
+            return;
+        }
+        if (jdk < 21) {
+            System.out.println("Threads: virtual threads requested but JDK " + jdk + " has none; running on platform threads");
+            return;
+        }
+        System.out.println("Threads: virtual threads for requests, @Async and @Scheduled work, JDK " + jdk);
+
+        for (Driver driver : Collections.list(DriverManager.getDrivers())) {
+            if (driver.getClass().getName().startsWith("com.mysql.")) {
+                String version = driver.getMajorVersion() + "." + driver.getMinorVersion();
+                System.out.println(driver.getMajorVersion() >= MYSQL_LOCK_BASED_MAJOR
+                        ? "Threads: MySQL Connector/J " + version + " uses locks, no pinning on JDBC I/O"
+                        : "Threads: WARNING MySQL Connector/J " + version + " blocks inside synchronized and pins carrier threads; upgrade to 9.x");
+            }
+        }
+
+        String mongo = mongoDriverVersion();
+        if (mongo == null) {
+            System.out.println("Threads: MongoDB driver version unknown; 4.11+ is needed to avoid pinning on Mongo I/O");
+        } else {
+            System.out.println(isAtLeast(mongo, MONGO_LOCK_BASED)
+                    ? "Threads: MongoDB driver " + mongo + " uses locks, no pinning on Mongo I/O"
+                    : "Threads: WARNING MongoDB driver " + mongo + " blocks inside synchronized and pins carrier threads; upgrade to 4.11+");
+        }
+
+        boolean tracing = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(arg -> arg.startsWith("-Djdk.tracePinnedThreads"));
+        if (!tracing) {
+            System.out.println("Threads: start with -Djdk.tracePinnedThreads=short (or record the JFR jdk.VirtualThreadPinned event) to log pinning at runtime");
+        }
+    }
+
+    // The driver's version from the manifest of the jar MongoClient was loaded from (plain or nested in the boot jar):
+    // Implementation-Version when set, otherwise the OSGi Bundle-Version the driver jars carry. Null if neither is there.
+    private static String mongoDriverVersion() {
+        String version = MongoClient.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        String classUrl = String.valueOf(MongoClient.class.getResource("MongoClient.class"));
+        int jarEnd = classUrl.lastIndexOf("!/");
+        if (jarEnd < 0) {
+            return null;
+        }
+        try (InputStream in = URI.create(classUrl.substring(0, jarEnd) + "!/META-INF/MANIFEST.MF").toURL().openStream()) {
+            Attributes attributes = new Manifest(in).getMainAttributes();
+            version = attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+            return version != null ? version : attributes.getValue("Bundle-Version");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // compares the leading major.minor of a dotted version string
+    private static boolean isAtLeast(String version, int[] minimum) {
+        String[] parts = version.split("[.-]");
+        for (int i = 0; i < minimum.length; i++) {
+            int part = i < parts.length && parts[i].chars().allMatch(Character::isDigit) && !parts[i].isEmpty()
+                    ? Integer.parseInt(parts[i])
+                    : 0;
+            if (part != minimum[i]) {
+                return part > minimum[i];
+            }
+        }
+        return true;
+    }
+}
@@ -1,15 +1,31 @@
 package com.project.back_end.config;
 
 
+import com.project.back_end.services.TokenService;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull; 
 
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final TokenService tokenService;
+
+    public WebConfig(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public void addArgumentResolvers(@NonNull List<HandlerMethodArgumentResolver> resolvers) {
+        // lets controllers take the authenticated caller as an AuthPrincipal argument
+        resolvers.add(new AuthPrincipalArgumentResolver(tokenService));
+    }
+
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
         // Allow CORS for all endpoints but only from the Angular dev server
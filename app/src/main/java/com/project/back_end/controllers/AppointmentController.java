@@ -1,17 +1,23 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.DTO.StatusUpdate;
 import com.project.back_end.models.Appointment;
+import com.project.back_end.services.AppointmentChangeFeed;
 import com.project.back_end.services.AppointmentService;
-import com.project.back_end.services.UtilityService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -31,7 +37,10 @@ public class AppointmentController {
     private AppointmentService appointmentService;
 
     @Autowired
-    private UtilityService utilityService;
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AppointmentChangeFeed appointmentChangeFeed;
 
     // 3. Define the `getAppointments` Method:
 //    - Handles HTTP GET requests to fetch appointments based on date and patient name.
@@ -39,15 +48,21 @@ public class AppointmentController {
 //    - First validates the token for role `"doctor"` using the `Service`.
 //    - If the token is valid, returns appointments for the given patient on the specified date.
 //    - If the token is invalid or expired, responds with the appropriate message and status code.
+//    - Supports conditional GET: the ETag is built from the version columns of the day's appointments, and a matching
+//      `If-None-Match` gets `304 Not Modified` (see `AppointmentService.doctorDayEtag`).
     @GetMapping("/{date}/{patientName}/{token}")
-    public ResponseEntity<?> getAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String patientName, @PathVariable String token) {
+    public ResponseEntity<?> getAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String patientName,
+                                             AuthPrincipal principal, WebRequest request) {
         try {
-            Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
             Map<String, String> resp = new HashMap<>();
-            if (tokenMap.isEmpty()) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
             }
-            Map<String, Object> appt = appointmentService.getAppointment(date, patientName, token);
+            // an unchanged day is answered with a bodiless 304 before any appointment is read
+            if (principal.hasRole("doctor") && request.checkNotModified(appointmentService.doctorDayEtag(principal.getId(), date))) {
+                return null;
+            }
+            Map<String, Object> appt = appointmentService.getAppointment(date, patientName, principal);
             return ResponseEntity.ok(appt);
         } catch (DateTimeParseException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please provide a valid date");
@@ -59,24 +74,29 @@ public class AppointmentController {
 //    - Accepts a validated `Appointment` object in the request body and a token as a path variable.
 //    - Validates the token for the `"patient"` role.
 //    - Uses service logic to validate the appointment data (e.g., check for doctor availability and time conflicts).
-//    - Returns success if booked, or appropriate error messages if the doctor ID is invalid or the slot is already taken.
+//    - Returns success if booked, 409 if the slot was already taken, and 400 if the doctor ID is invalid or the doctor does not offer that time.
     @PostMapping("/{token}")
-    public ResponseEntity<?> bookAppointment(@RequestBody Appointment appt, @PathVariable String token) {
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
+    public ResponseEntity<?> bookAppointment(@RequestBody Appointment appt, AuthPrincipal principal) {
         Map<String, String> resp = new HashMap<>();
-        if (!tokenMap.isEmpty() && utilityService.validateAppointment(appt) == 1) {
-               int result = appointmentService.bookAppointment(appt);
-               if (result == 1) {
-                   resp.put("message", "The appointment has been booked.");
-                   return ResponseEntity.ok(resp);
-               } else {
-                   resp.put("error", "There was an issue saving the appointment");
-                   return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
-               }
+        if (principal == null) {
+            resp.put("error", "There was an issue saving the appointment");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
+        }
+        // validation and save happen together under the slot lock (see AppointmentService.bookAppointment)
+        int result = appointmentService.bookAppointment(appt);
+        meterRegistry.counter("appointments.booking", "code", String.valueOf(result)).increment();
+        if (result == AppointmentService.BOOKED) {
+            resp.put("message", "The appointment has been booked.");
+            return ResponseEntity.ok(resp);
+        } else if (result == AppointmentService.SLOT_TAKEN) {
+            resp.put("error", "This time slot is no longer available, please choose another");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(resp);
+        } else if (result == AppointmentService.NOT_OFFERED) {
+            resp.put("error", "The doctor does not offer this time, please choose one of the available slots");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
         } else {
             resp.put("error", "There was an issue saving the appointment");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
-
         }
     }
 
@@ -87,9 +107,8 @@ public class AppointmentController {
 //    - Delegates the update logic to the `AppointmentService`.
 //    - Returns an appropriate success or failure response based on the update result.
     @PutMapping("/{token}")
-    public ResponseEntity<?> updateAppointment(@RequestBody Appointment appt, @PathVariable String token) {
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
+    public ResponseEntity<?> updateAppointment(@RequestBody Appointment appt, AuthPrincipal principal) {
+        if (principal != null) {
            return appointmentService.updateAppointment(appt);
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("There's no token");
@@ -102,13 +121,73 @@ public class AppointmentController {
 //    - Validates the token for `"patient"` role to ensure the user is authorized to cancel the appointment.
 //    - Calls `AppointmentService` to handle the cancellation process and returns the result.
     @DeleteMapping("/{id}/{token}")
-    public ResponseEntity<?> cancelAppointment(@PathVariable Long id, @PathVariable String token) {
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
+    public ResponseEntity<?> cancelAppointment(@PathVariable Long id, AuthPrincipal principal) {
+        if (principal != null) {
             return appointmentService.cancelAppointment(id);
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("There's no token");
         }
     }
 
+// 7. Define the `bookAppointments` Method:
+//    - Handles HTTP POST requests that book a whole series of appointments (e.g. weekly sessions) at once.
+//    - The series is booked all or nothing; the response carries one result code per appointment, in request order.
+//    - Returns 409 only when every failed item is a slot someone else already booked; 400 when any item is the client's
+//      mistake (unknown doctor, incomplete item, time not offered, same slot twice in the series, time in the past);
+//      413 above MAX_BATCH appointments.
+    @PostMapping("/batch/{token}")
+    public ResponseEntity<?> bookAppointments(@RequestBody List<Appointment> appts, AuthPrincipal principal) {
+        Map<String, Object> resp = new HashMap<>();
+        if (principal == null) {
+            resp.put("error", "There's no token");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
+        }
+        if (appts.size() > AppointmentService.MAX_BATCH) {
+            resp.put("error", "At most " + AppointmentService.MAX_BATCH + " appointments per batch");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(resp);
+        }
+        List<Integer> results = appointmentService.bookAppointments(appts);
+        for (int result : results) {
+            meterRegistry.counter("appointments.booking", "code", String.valueOf(result)).increment();
+        }
+        resp.put("results", results);
+        if (results.stream().allMatch(code -> code == AppointmentService.BOOKED)) {
+            resp.put("message", results.size() + " appointments have been booked.");
+            return ResponseEntity.ok(resp);
+        }
+        resp.put("error", "No appointments were booked; see results for the items that failed");
+        // a conflict only if every failure is a slot taken by someone else; any client error makes it a 400
+        boolean onlyTaken = results.stream()
+                .allMatch(code -> code == AppointmentService.BOOKED || code == AppointmentService.SLOT_TAKEN);
+        return ResponseEntity.status(onlyTaken ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST).body(resp);
+    }
+
+// 8. Define the `changeStatuses` Method:
+//    - Handles HTTP PUT requests that set one status on many appointments (e.g. end-of-day "past" updates).
+//    - Admins can update any appointment, doctors only their own.
+    @PutMapping("/batch/status/{token}")
+    public ResponseEntity<?> changeStatuses(@RequestBody StatusUpdate update, AuthPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("There's no token");
+        }
+        if (update.getIds() == null || update.getIds().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "ids are required"));
+        }
+        return appointmentService.changeStatuses(update.getIds(), update.getStatus(), principal);
+    }
+
+// 9. Define the `streamAppointments` Method:
+//    - Handles HTTP GET requests that open a Server-Sent Events stream for the doctor's appointments on a date.
+//    - Pushes `added`, `updated` and `cancelled` events as appointments of that day change, so the dashboard
+//      only loads the day once and applies the changes instead of polling.
+//    - The token is a path variable because the browser's EventSource cannot send headers.
+    @GetMapping(value = "/stream/{date}/{token}", produces = "text/event-stream")
+    public ResponseEntity<?> streamAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, AuthPrincipal principal) {
+        if (principal == null || !principal.hasRole("doctor")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        SseEmitter emitter = appointmentChangeFeed.subscribe(principal.getId(), date);
+        return ResponseEntity.ok(emitter);
+    }
+
 }
@@ -1,17 +1,26 @@
 package com.project.back_end.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AuthPrincipal;
 import com.project.back_end.DTO.DoctorDTO;
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.services.DoctorDirectorySnapshot;
 import com.project.back_end.services.DoctorService;
 import com.project.back_end.services.UtilityService;
-import com.project.back_end.services.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -35,7 +44,12 @@ public class DoctorController {
     @Autowired
     private UtilityService utilityService;
     @Autowired
-    private TokenService tokenService;
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DoctorDirectorySnapshot directorySnapshot;
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
 // 3. Define the `getDoctorAvailability` Method:
 //    - Handles HTTP GET requests to check a specific doctor’s availability on a given date.
@@ -43,9 +57,8 @@ public class DoctorController {
 //    - First validates the token against the user type.
 //    - If the token is invalid, returns an error response; otherwise, returns the availability status for the doctor.
     @GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
-    public ResponseEntity<?> getDoctorAvailability(@PathVariable String user, @PathVariable Long doctorId, @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String token) {
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
+    public ResponseEntity<?> getDoctorAvailability(@PathVariable String user, @PathVariable Long doctorId, @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, AuthPrincipal principal) {
+        if (principal != null) {
             List<String> avail = doctorService.getDoctorAvailability(doctorId, date);
             return ResponseEntity.ok(avail);
         } else {
@@ -56,9 +69,32 @@ public class DoctorController {
 // 4. Define the `getDoctor` Method:
 //    - Handles HTTP GET requests to retrieve a list of all doctors.
 //    - Returns the list within a response map under the key `"doctors"` with HTTP 200 OK status.
+//    - Optional keyset pagination: `?limit=n` returns one page after the `after` id and puts the next cursor in `X-Next-Cursor`.
+//    - Without `after` and `limit` the whole directory is sent from the precomputed `DoctorDirectorySnapshot` bytes, gzip-encoded
+//      when the client accepts it, with a strong ETag; a client sending that ETag in `If-None-Match` gets `304 Not Modified`.
+//    - With only `after`, the rest of the directory is streamed as a JSON array, page by page, so it is never held in memory at once.
     @GetMapping
-    public ResponseEntity<?> getDoctors() {
-        return ResponseEntity.ok(doctorService.getDoctors());
+    public ResponseEntity<?> getDoctors(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (after == null && limit == null) {
+            return snapshotResponse(acceptEncoding);
+        }
+        return directoryResponse(after, limit, null);
+    }
+
+    // The bytes are written as they are, with no serialization. Spring answers 304 itself when If-None-Match
+    // matches the ETag of a GET's ResponseEntity, before writing any body.
+    private ResponseEntity<byte[]> snapshotResponse(String acceptEncoding) {
+        DoctorDirectorySnapshot.Blob blob = directorySnapshot.current();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return ok.eTag(blob.gzipEtag()).header(HttpHeaders.CONTENT_ENCODING, "gzip").body(blob.gzip());
+        }
+        return ok.eTag(blob.etag()).body(blob.json());
     }
 
 // 5. Define the `saveDoctor` Method:
@@ -67,10 +103,9 @@ public class DoctorController {
 //    - Validates the token for the `"admin"` role before proceeding.
 //    - If the doctor already exists, returns a conflict response; otherwise, adds the doctor and returns a success message.
     @PostMapping("/save/{token}")
-    public ResponseEntity<?> saveDoctor(@RequestBody Doctor doctor,@PathVariable String token) {
+    public ResponseEntity<?> saveDoctor(@RequestBody Doctor doctor, AuthPrincipal principal) {
         Map<String, String> resp = new HashMap<>();
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
+        if (principal != null) {
              Map<String, Object> doc = doctorService.findDoctorByName(doctor.getName());
              if (!doc.isEmpty()) {
                  resp.put("message", "doc already exists");
@@ -106,9 +141,8 @@ public class DoctorController {
 //    - Token must belong to an `"admin"`.
 //    - If the doctor exists, updates the record and returns success; otherwise, returns not found or error messages.
     @PutMapping("/{token}")
-    public ResponseEntity<?> updateDoctor(@RequestBody DoctorDTO dto, @PathVariable String token) {
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
+    public ResponseEntity<?> updateDoctor(@RequestBody DoctorDTO dto, AuthPrincipal principal) {
+        if (principal != null) {
             int result = doctorService.updateDoctor(dto);
             if (result == 1) {
                 return ResponseEntity.ok("doctor has been updated");
@@ -123,52 +157,85 @@ public class DoctorController {
 // 8. Define the `deleteDoctor` Method:
 //    - Handles HTTP DELETE requests to remove a doctor by ID.
 //    - Requires both doctor ID and an admin token as path variables.
-//    - If the doctor exists, deletes the record and returns a success message; otherwise, responds with a not found or error message.
+//    - If the doctor exists, starts the deletion and returns `202 Accepted` with a `jobId`; otherwise, responds with a not found or error message.
+//    - The appointments, their prescriptions and the doctor are removed in the background; see `getDeletionJob` for progress.
     @DeleteMapping("/delete/{id}/{token}")
-    public ResponseEntity<?> deleteDoctor(@PathVariable Long id, @PathVariable String token) {
-        Map<String, String> resp = new HashMap<>();
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
-            int result = doctorService.deleteDoctor(id);
-            if (result == 1) {
-                resp.put("message", "doctor deleted successfully");
-                return ResponseEntity.ok(resp);
-            } else if (result == -1) {
-                resp.put("message", "doctor not found");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
-            }
+    public ResponseEntity<?> deleteDoctor(@PathVariable Long id, AuthPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("invalid token");
         }
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("invalid token");
+        return doctorService.deleteDoctor(id);
+    }
 
+//    - Returns the progress of a doctor deletion job started by `deleteDoctor`, for the admin dashboard.
+    @GetMapping("/delete/jobs/{jobId}/{token}")
+    public ResponseEntity<?> getDeletionJob(@PathVariable Long jobId, AuthPrincipal principal) {
+        if (principal == null || !principal.hasRole("admin")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("invalid or missing token");
+        }
+        return doctorService.getDeletionJob(jobId);
     }
 
 // 9. Define the `filter` Method:
 //    - Handles HTTP GET requests to filter doctors based on name, time, and specialty.
 //    - Accepts `name`, `time`, and `speciality` as path variables.
 //    - Calls the shared `Service` to perform filtering logic and returns matching doctors in the response.
+//    - With no filter at all ("null" for all three) this is a directory listing and supports the same `after`/`limit` paging.
     @GetMapping("/filter/{name}/{time}/{specialty}")
-    public ResponseEntity<?> filterDoctor(@PathVariable String name, @PathVariable String time, @PathVariable String specialty) {
+    public ResponseEntity<?> filterDoctor(@PathVariable String name, @PathVariable String time, @PathVariable String specialty,
+                                          @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit) {
+        if (name.equals("null") && time.equals("null") && specialty.equals("null")) {
+            return directoryResponse(after, limit, "doctors");
+        }
         return ResponseEntity.ok(utilityService.filterDoctor(name,specialty,time));
     }
 
-    // Returns the authenticated doctor's profile as JSON for frontend use
-    @GetMapping("/profile")
-    public ResponseEntity<?> getDoctorProfile(
-        @RequestHeader(value = "Authorization", required = false) String authHeader
-    ) {
-        String token = authHeader;
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (!tokenMap.isEmpty()) {
-            String email = tokenMap.getOrDefault("email", null);
-            if (email == null && token != null) {
-                email = tokenService.extractEmail(token);
+    // Either one keyset page (when a limit is given) or the whole directory streamed from keyset pages.
+    // With a wrapKey the array is returned as {"<wrapKey>": [...]}, matching the filter endpoint's shape.
+    private ResponseEntity<?> directoryResponse(Long after, Integer limit, String wrapKey) {
+        long cursor = after != null ? after : 0L;
+        if (limit != null) {
+            int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            List<DoctorDTO> page = doctorService.getDoctorPage(cursor, size);
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+            if (page.size() == size) {
+                ok.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
             }
-            if (email != null) {
-                DoctorDTO dto = doctorService.findByEmail(email);
-                if (dto != null) {
-                    return ResponseEntity.ok(dto);
+            return wrapKey == null ? ok.body(page) : ok.body(Map.of(wrapKey, page));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                if (wrapKey != null) {
+                    json.writeStartObject();
+                    json.writeFieldName(wrapKey);
+                }
+                json.writeStartArray();
+                doctorService.forEachDoctor(cursor, dto -> {
+                    try {
+                        json.writeObject(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                if (wrapKey != null) {
+                    json.writeEndObject();
                 }
             }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Returns the authenticated doctor's profile as JSON for frontend use
+    @GetMapping("/profile")
+    public ResponseEntity<?> getDoctorProfile(AuthPrincipal principal) {
+        // the principal is resolved from the Authorization header
+        if (principal != null) {
+            DoctorDTO dto = doctorService.findByEmail(principal.getEmail());
+            if (dto != null) {
+                return ResponseEntity.ok(dto);
+            }
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or missing token");
     }
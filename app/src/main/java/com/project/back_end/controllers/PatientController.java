@@ -1,13 +1,16 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AuthPrincipal;
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Patient;
+import com.project.back_end.services.PatientDashboardService;
 import com.project.back_end.services.PatientService;
 import com.project.back_end.services.UtilityService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -25,6 +28,9 @@ public class PatientController {
 
     @Autowired
     private UtilityService utilityService;
+
+    @Autowired
+    private PatientDashboardService patientDashboardService;
 // 2. Autowire Dependencies:
 //    - Inject `PatientService` to handle patient-specific logic such as creation, retrieval, and appointments.
 //    - Inject the shared `Service` class for tasks like token validation and login authentication.
@@ -34,13 +40,14 @@ public class PatientController {
 //    - Handles HTTP GET requests to retrieve patient details using a token.
 //    - Validates the token for the `"patient"` role using the shared service.
 //    - If the token is valid, returns patient information; otherwise, returns an appropriate error message.
+//    - Supports conditional GET: the ETag comes from the patient's version, and a matching `If-None-Match` gets `304 Not Modified`.
     @GetMapping()
-    public ResponseEntity<?> getPatient(@RequestHeader("Authorization") String authHeader) {
-        String token = authHeader.replace("Bearer ", "");
-        Map<String, String> tm = utilityService.getTokenValidationResponse(token);
-
-        if (!tm.isEmpty()) {
-            return patientService.getPatientDetails(token);
+    public ResponseEntity<?> getPatient(AuthPrincipal principal, WebRequest request) {
+        if (principal != null) {
+            if (principal.hasRole("patient") && notModified(request, patientService.detailsEtag(principal.getId()))) {
+                return null;
+            }
+            return patientService.getPatientDetails(principal);
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("missing or invalid token");
     }
@@ -87,13 +94,15 @@ public class PatientController {
 //    - Requires the patient ID, token, and user role as path variables.
 //    - Validates the token using the shared service.
 //    - If valid, retrieves the patient's appointment data from `PatientService`; otherwise, returns a validation error.
+//    - Supports conditional GET with an ETag over the versions of the patient's appointments (see `PatientService.appointmentsEtag`).
     @GetMapping("/{id}")
-    public ResponseEntity<?> getPatientAppointment(@PathVariable Long id, @RequestHeader("Authorization") String authHeader) {
-        String token = authHeader.replace("Bearer ", "");
-
-        Map<String, String> tm = utilityService.getTokenValidationResponse(token);
-        if (!tm.isEmpty()) {
-            return patientService.getPatientAppointment(id, token);
+    public ResponseEntity<?> getPatientAppointment(@PathVariable Long id, AuthPrincipal principal, WebRequest request) {
+        if (principal != null) {
+            if (principal.hasRole("patient") && id.equals(principal.getId())
+                    && notModified(request, patientService.appointmentsEtag(id))) {
+                return null;
+            }
+            return patientService.getPatientAppointment(id, principal);
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("invalid token");
     }
@@ -108,19 +117,41 @@ public class PatientController {
 //    - Accepts filtering parameters: `condition`, `name`, and a token.
 //    - Token must be valid for a `"patient"` role.
 //    - If valid, delegates filtering logic to the service layer and returns the filtered result.
+//    - Supports conditional GET with the same ETag as `getPatientAppointment`, checked before any filtering runs.
 
     @GetMapping("/filter/{condition}/{name}/{token}")
     public ResponseEntity<?> filterPatientAppointment(@PathVariable String condition,
                                                       @PathVariable String name,
-                                                      @PathVariable String token) {
+                                                      AuthPrincipal principal,
+                                                      WebRequest request) {
 
-        Map<String, String> tokenMap = utilityService.getTokenValidationResponse(token);
-        if (tokenMap.isEmpty()) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Invalid or missing token");
         }
+        if (principal.hasRole("patient") && notModified(request, patientService.appointmentsEtag(principal.getId()))) {
+            return null;
+        }
 
-        return utilityService.filterPatient(condition, name, token);
+        return utilityService.filterPatient(condition, name, principal);
 
     }
+
+    // Conditional GET: sets the ETag on the response and, when it matches the request's If-None-Match,
+    // turns the response into a bodiless 304 (the handler then returns null). Null tags are not checked.
+    private boolean notModified(WebRequest request, String etag) {
+        return etag != null && request.checkNotModified(etag);
+    }
+
+// 8. Define the `getDashboard` Method:
+//    - Handles HTTP GET requests for the patient dashboard in a single round trip.
+//    - Token must be valid for a `"patient"` role.
+//    - Returns the patient, their appointments and the prescriptions of those appointments (keyed by appointment id) together.
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> getDashboard(AuthPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("invalid token");
+        }
+        return patientDashboardService.getDashboard(principal);
+    }
 }
@@ -1,15 +1,24 @@
 package com.project.back_end.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AuthPrincipal;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.PrescriptionService;
-import com.project.back_end.services.UtilityService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("${api.path}" + "prescription")
@@ -23,10 +32,12 @@ public class PrescriptionController {
     private PrescriptionService prescriptionService;
 
     @Autowired
-    private UtilityService utilityService;
+    private AppointmentService appointmentService;
 
     @Autowired
-    private AppointmentService appointmentService;
+    private ObjectMapper objectMapper;
+
+    private static final int MAX_BATCH_APPOINTMENTS = 1000;
 
 // 2. Autowire Dependencies:
 //    - Inject `PrescriptionService` to handle logic related to saving and fetching prescriptions.
@@ -41,9 +52,8 @@ public class PrescriptionController {
 //    - If the token is valid, updates the status of the corresponding appointment to reflect that a prescription has been added.
 //    - Delegates the saving logic to `PrescriptionService` and returns a response indicating success or failure.
     @PostMapping("/{token}")
-    public ResponseEntity<?> savePrescription(@PathVariable String token, @RequestBody Prescription prescription) {
-        Map<String, String> tm = utilityService.getTokenValidationResponse(token);
-        if (tm.isEmpty()) {
+    public ResponseEntity<?> savePrescription(AuthPrincipal principal, @RequestBody Prescription prescription) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Invalid or missing token"));
         } else {
@@ -58,14 +68,44 @@ public class PrescriptionController {
 //    - If the token is valid, fetches the prescription using the `PrescriptionService`.
 //    - Returns the prescription details or an appropriate error message if validation fails.
     @GetMapping("/{appointmentId}/{token}")
-    public ResponseEntity<?> getPrescription(@PathVariable Long appointmentId, @PathVariable String token) {
-        Map<String, String> tm = utilityService.getTokenValidationResponse(token);
-
-        if (tm.isEmpty()) {
+    public ResponseEntity<?> getPrescription(@PathVariable Long appointmentId, AuthPrincipal principal) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired token");
         }
             return prescriptionService.getPrescription(appointmentId);
 
     }
 
+// 5. Define the `getPrescriptions` Method:
+//    - Handles HTTP GET requests for the prescriptions of many appointments at once, e.g. a doctor's day list.
+//    - Accepts `appointmentIds` as a comma-separated (or repeated) query parameter, up to 1000 ids, and a doctor or admin token.
+//    - Runs one Mongo query and streams `{"<appointmentId>": [prescriptions...]}` from its cursor; appointments without prescriptions are omitted.
+    @GetMapping("/batch/{token}")
+    public ResponseEntity<?> getPrescriptions(@RequestParam List<Long> appointmentIds, AuthPrincipal principal) {
+        if (principal == null || !(principal.hasRole("doctor") || principal.hasRole("admin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid or missing token"));
+        }
+        Set<Long> ids = new LinkedHashSet<>(appointmentIds);
+        if (ids.size() > MAX_BATCH_APPOINTMENTS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "at most " + MAX_BATCH_APPOINTMENTS + " appointments per request"));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                prescriptionService.forEachPrescriptionGroup(ids, (appointmentId, prescriptions) -> {
+                    try {
+                        json.writeFieldName(String.valueOf(appointmentId));
+                        json.writeObject(prescriptions);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
 }
@@ -5,10 +5,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 
 @Entity
+// login and token validation look admins up by username
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_admin_username", columnNames = "username"))
 @AllArgsConstructor
 public class Admin {
 
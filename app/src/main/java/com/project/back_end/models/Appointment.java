@@ -1,5 +1,6 @@
 package com.project.back_end.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
@@ -13,6 +14,15 @@ import java.time.LocalTime;
 
 
 @Entity
+// at most one appointment per doctor and start time; this is what finally rejects a double booking
+// that raced past the in-process slot locks (e.g. from another node). Its index also serves every
+// doctor_id + appointment_time range query. (patient_id, status, appointment_time) serves the patient
+// history filtered by status and ordered by time; (status, appointment_time) serves AppointmentStatusJob.
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_appointment_doctor_time", columnNames = {"doctor_id", "appointment_time"}),
+        indexes = {
+                @Index(name = "idx_appointment_patient_status_time", columnList = "patient_id, status, appointment_time"),
+                @Index(name = "idx_appointment_status_time", columnList = "status, appointment_time")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -68,6 +78,13 @@ public class Appointment {
 //        - 0 means the appointment is scheduled.
 //        - 1 means the appointment has been completed.
 //      - The @NotNull annotation ensures that the status field is not null.
+
+    // Optimistic-lock version, bumped on every change (bulk status UPDATEs in AppointmentRepository bump it too);
+    // the appointment lists derive their ETags from it. Not part of the JSON wire format.
+    @Version
+    @JsonIgnore
+    private long version;
+
     @Transient
     public LocalDateTime getEndTime() {
         return appointmentTime.plusHours(1);
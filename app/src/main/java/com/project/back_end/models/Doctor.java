@@ -1,11 +1,13 @@
 package com.project.back_end.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -13,6 +15,12 @@ import lombok.Setter;
 import java.util.List;
 
 @Entity
+// email is the login and token lookup key
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_doctor_email", columnNames = "email"),
+        indexes = {
+                @Index(name = "idx_doctor_available_periods", columnList = "available_periods"),
+                @Index(name = "idx_doctor_specialty_periods", columnList = "specialty, available_periods")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -89,6 +97,54 @@ public class Doctor {
 //      - Each time slot is represented as a string (e.g., "09:00-10:00", "10:00-11:00").
 //      - The @ElementCollection annotation ensures that the list of time slots is stored as a separate collection in the database.
 
+    // Parsed form of availableTimes (see TimeSlot), built on first use and reset whenever the list is replaced.
+    // Not persisted and not part of the JSON wire format.
+    @Transient
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private int[] packedSlots;
+
+    // AM/PM summary of availableTimes (see TimeSlot.periodsOf), persisted so the time-of-day filters
+    // run as an indexed predicate in SQL instead of parsing every doctor's slots in Java.
+    // Kept in step by setAvailableTimes and on persist; DoctorPeriodsBackfill fills rows written before it existed.
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private Integer availablePeriods;
+
+    // Set when a deletion job is enqueued (see DoctorService.deleteDoctor); the availability index and batch booking
+    // then treat the doctor as unknown, so nothing new is booked while the job removes their history.
+    @JsonIgnore
+    private boolean deleting;
+
+    // Optimistic-lock version, bumped on every change; appointment list ETags include it since they show the doctor's name.
+    @Version
+    @JsonIgnore
+    private long version;
+
+    public void setAvailableTimes(List<String> availableTimes) {
+        this.availableTimes = availableTimes;
+        this.packedSlots = null;
+        refreshAvailablePeriods();
+    }
+
+    @PrePersist
+    public void refreshAvailablePeriods() {
+        this.packedSlots = null;
+        this.availablePeriods = TimeSlot.periodsOf(getPackedSlots());
+    }
+
+    public int[] getPackedSlots() {
+        if (packedSlots == null) {
+            List<String> times = availableTimes != null ? availableTimes : List.of();
+            int[] parsed = new int[times.size()];
+            for (int i = 0; i < parsed.length; i++) {
+                parsed[i] = TimeSlot.parse(times.get(i));
+            }
+            packedSlots = parsed;
+        }
+        return packedSlots;
+    }
+
 // 8. Getters and Setters:
 //    - Standard getter and setter methods are provided for all fields: id, name, specialty, email, password, phone, and availableTimes.
 
@@ -0,0 +1,61 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one doctor's deletion, which DoctorDeletionJobRunner carries out chunk by chunk.
+ * The row survives restarts, so an interrupted deletion resumes where it stopped.
+ */
+@Entity
+@Table(name = "doctor_deletion_job", indexes = @Index(name = "idx_deletion_job_status", columnList = "status, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class DoctorDeletionJob {
+
+    // FAILED: gave up after doctor.delete.max-attempts failures in a row; deleting the doctor again starts a new job
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long doctorId;
+
+    private String doctorEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    private long appointmentsDeleted;
+
+    private long prescriptionsDeleted;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    // the last failure, kept until the next chunk succeeds; the job is retried on the next resume
+    @Column(length = 500)
+    private String lastError;
+
+    // failures since the last chunk that succeeded
+    private int attempts;
+
+    public DoctorDeletionJob(Long doctorId, String doctorEmail) {
+        this.doctorId = doctorId;
+        this.doctorEmail = doctorEmail;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,60 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect of a committed change, written in the same transaction as the change itself
+ * (transactional outbox). OutboxDispatcher hands it to the handlers off the request thread and
+ * stamps {@code publishedAt} once they all succeeded; rows still unpublished are retried.
+ */
+@Entity
+// (published_at, id) serves the relay's scan for pending rows in id order and the purge of old published ones
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_published_id", columnList = "published_at, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    public enum Type {
+        APPOINTMENT_BOOKED,
+        APPOINTMENT_UPDATED,
+        APPOINTMENT_CANCELLED,
+        APPOINTMENT_STATUS_CHANGED,
+        DOCTOR_DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private Type type;
+
+    // the appointment or doctor the event is about
+    private Long aggregateId;
+
+    // JSON object with the event's details (see Outbox.record)
+    @Column(nullable = false, length = 2000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime publishedAt;
+
+    // failed dispatches so far; the relay gives up after outbox.max-attempts
+    private int attempts;
+
+    public OutboxEvent(Type type, Long aggregateId, String payload) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -1,9 +1,13 @@
 package com.project.back_end.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -13,6 +17,11 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+// login and token validation look patients up by email, registration checks email or phone
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_patient_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_patient_phone", columnNames = "phone")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -79,6 +88,11 @@ public class Patient {
 //      - The @Size(max = 255) annotation ensures that the address does not exceed 255 characters in length, providing validation for the address input.
 
 
+    // Optimistic-lock version, bumped on every change; the patient's GET endpoints derive their ETags from it.
+    @Version
+    @JsonIgnore
+    private long version;
+
 // 7. Getters and Setters:
 //    - Standard getter and setter methods are provided for all fields: id, name, email, password, phone, and address.
 //    - These methods allow access and modification of the fields of the Patient class.
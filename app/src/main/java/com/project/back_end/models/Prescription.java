@@ -7,9 +7,12 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "prescriptions")
+// serves lookups by one or many appointment ids and returns them already ordered for grouping
+@CompoundIndex(name = "idx_prescription_appointment", def = "{'appointmentId': 1, '_id': 1}")
 @Getter
 @Setter
 @NoArgsConstructor
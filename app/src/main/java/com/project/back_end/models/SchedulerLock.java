@@ -0,0 +1,50 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per background job: whichever node holds an unexpired lease on the row runs the job.
+ * Leases are taken and renewed with a conditional UPDATE (see SchedulerLockRepository.tryAcquire),
+ * so a node that dies simply lets its lease run out.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class SchedulerLock implements Persistable<String> {
+
+    @Id
+    private String name;
+
+    private LocalDateTime lockedUntil;
+
+    private String lockedBy;
+
+    // set for rows created here, so save() always INSERTs and never merges over a row another node just created
+    @Transient
+    private boolean created;
+
+    public SchedulerLock(String name) {
+        this.name = name;
+        this.lockedUntil = LocalDateTime.of(1970, 1, 1, 0, 0);
+        this.created = true;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+}
@@ -0,0 +1,128 @@
+package com.project.back_end.models;
+
+import java.util.List;
+
+/**
+ * Primitive representation of a doctor's time slot.
+ * <p>
+ * A slot label such as "09:00-10:00" is packed into a single int: start minute-of-day in the
+ * high 16 bits, end minute-of-day in the low 16 bits. Labels without an end ("09:00") are
+ * treated as one-hour slots. Unparseable labels pack to {@link #INVALID}.
+ */
+public final class TimeSlot {
+
+    public static final int INVALID = -1;
+    public static final int NOON = 12 * 60;
+
+    // Bits of a doctor's "available periods" mask: at least one slot starting before / at-or-after noon
+    public static final int PERIOD_AM = 1;
+    public static final int PERIOD_PM = 2;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private TimeSlot() {
+    }
+
+    public static int of(int startMinute, int endMinute) {
+        return (startMinute << 16) | endMinute;
+    }
+
+    // the one-hour slot starting at the given minute, matching how appointments are booked
+    public static int oneHourFrom(int startMinute) {
+        return of(startMinute, (startMinute + 60) % MINUTES_PER_DAY);
+    }
+
+    public static int start(int slot) {
+        return slot >>> 16;
+    }
+
+    public static int end(int slot) {
+        return slot & 0xFFFF;
+    }
+
+    public static boolean isMorning(int slot) {
+        return start(slot) < NOON;
+    }
+
+    /**
+     * Fold a doctor's packed slots into a PERIOD_AM / PERIOD_PM mask. Invalid slots are ignored.
+     */
+    public static int periodsOf(int[] slots) {
+        int periods = 0;
+        for (int slot : slots) {
+            if (slot != INVALID) {
+                periods |= isMorning(slot) ? PERIOD_AM : PERIOD_PM;
+            }
+        }
+        return periods;
+    }
+
+    /**
+     * The period masks that contain "AM" or "PM" (case-insensitive); empty for anything else.
+     * Used as the {@code IN} list of the doctor filter queries.
+     */
+    public static List<Integer> masksWithPeriod(String amOrPm) {
+        if ("AM".equalsIgnoreCase(amOrPm)) {
+            return List.of(PERIOD_AM, PERIOD_AM | PERIOD_PM);
+        }
+        if ("PM".equalsIgnoreCase(amOrPm)) {
+            return List.of(PERIOD_PM, PERIOD_AM | PERIOD_PM);
+        }
+        return List.of();
+    }
+
+    /**
+     * Parse "HH:mm-HH:mm" (or a bare "HH:mm") without splitting or boxing.
+     */
+    public static int parse(String label) {
+        if (label == null) {
+            return INVALID;
+        }
+        String value = label.trim();
+        int dash = value.indexOf('-');
+        int start = parseMinute(value, 0, dash < 0 ? value.length() : dash);
+        if (start < 0) {
+            return INVALID;
+        }
+        if (dash < 0) {
+            return oneHourFrom(start);
+        }
+        int end = parseMinute(value, dash + 1, value.length());
+        return end < 0 ? INVALID : of(start, end);
+    }
+
+    // "H:mm" / "HH:mm" between from and to (whitespace allowed around it) -> minute of day, or -1
+    private static int parseMinute(String value, int from, int to) {
+        while (from < to && value.charAt(from) == ' ') {
+            from++;
+        }
+        while (to > from && value.charAt(to - 1) == ' ') {
+            to--;
+        }
+        int colon = value.indexOf(':', from);
+        if (colon <= from || colon >= to - 1) {
+            return -1;
+        }
+        int hours = digits(value, from, colon);
+        int minutes = digits(value, colon + 1, to);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            return -1;
+        }
+        return hours * 60 + minutes;
+    }
+
+    private static int digits(String value, int from, int to) {
+        if (to - from > 2) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
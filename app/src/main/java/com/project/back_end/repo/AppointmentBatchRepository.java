@@ -0,0 +1,66 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC inserts for batch booking.
+ * <p>
+ * Appointment ids use IDENTITY generation, which makes Hibernate insert one row per statement
+ * (it needs each generated id right away), so {@code hibernate.jdbc.batch_size} never applies to them.
+ * Here the rows go through {@link JdbcTemplate#batchUpdate} instead; with the MySQL driver's
+ * {@code rewriteBatchedStatements=true} each batch becomes a single multi-row INSERT.
+ * The generated ids are read back per batch and set on the appointments.
+ * Runs inside the caller's JPA transaction; bean validation doesn't run here, the caller checks the rows first.
+ */
+@Repository
+public class AppointmentBatchRepository {
+
+    public static final int BATCH_SIZE = 50;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO appointment (doctor_id, patient_id, appointment_time, status, version) VALUES (?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<Appointment> appointments) {
+        for (int from = 0; from < appointments.size(); from += BATCH_SIZE) {
+            List<Appointment> batch = appointments.subList(from, Math.min(appointments.size(), from + BATCH_SIZE));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Appointment appointment = batch.get(i);
+                    ps.setLong(1, appointment.getDoctor().getId());
+                    ps.setLong(2, appointment.getPatient().getId());
+                    ps.setTimestamp(3, Timestamp.valueOf(appointment.getAppointmentTime()));
+                    ps.setInt(4, appointment.getStatus());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            }, keys);
+            // one key per row, in insert order; the column label differs by driver (GENERATED_KEY on MySQL, ID on H2)
+            List<Map<String, Object>> rows = keys.getKeyList();
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setId(((Number) rows.get(i).values().iterator().next()).longValue());
+            }
+        }
+    }
+}
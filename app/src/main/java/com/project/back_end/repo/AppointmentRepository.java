@@ -1,7 +1,12 @@
 package com.project.back_end.repo;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,11 +14,19 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.StringJoiner;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
+    // the AppointmentDTO columns, one row per appointment joined to its to-one doctor and patient.
+    // Projections come back as plain objects, so nothing is managed, snapshotted or dirty-checked.
+    String DTO_SELECT = "SELECT new com.project.back_end.DTO.AppointmentDTO(" +
+            "a.id, d.id, d.name, p.id, p.name, p.email, p.phone, p.address, a.appointmentTime, a.status) " +
+            "FROM Appointment a JOIN a.doctor d JOIN a.patient p ";
+
     // 1. Extend JpaRepository:
 //    - The repository extends JpaRepository<Appointment, Long>, which gives it basic CRUD functionality.
 //    - The methods such as save, delete, update, and find are inherited without the need for explicit implementation.
@@ -23,102 +36,241 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
 // 2. Custom Query Methods:
 
-    //    - **findByDoctorIdAndAppointmentTimeBetween**:
-//      - This method retrieves a list of appointments for a specific doctor within a given time range.
-//      - The doctor’s available times are eagerly fetched to avoid lazy loading.
-//      - Return type: List<Appointment>
+    //    - **findAppointmentTimes**:
+//      - This method retrieves only the start times of a doctor's appointments within a given time range.
+//      - It is all the availability index needs, so no entity, doctor or slot list is loaded.
+//      - Return type: List<LocalDateTime>
 //      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
-//      - It uses a LEFT JOIN to fetch the doctor’s available times along with the appointments.
-
+    @Query("SELECT a.appointmentTime FROM Appointment a " +
+            "WHERE a.doctor.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
+    List<LocalDateTime> findAppointmentTimes(
+            @Param("doctorId") Long doctorId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
 
-    @Query("SELECT a FROM Appointment a " +
-            "LEFT JOIN FETCH a.doctor d " +
-            "LEFT JOIN FETCH d.availableTimes " +
+    //    - **findDtosByDoctorIdAndAppointmentTimeBetween**:
+//      - This method retrieves the doctor dashboard rows for a specific doctor within a given time range.
+//      - It selects the AppointmentDTO columns directly, one row per appointment, joining only the to-one doctor and patient.
+//      - Return type: List<AppointmentDTO>
+//      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
+    @Query(DTO_SELECT +
             "WHERE d.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
-    List<Appointment> findByDoctorIdAndAppointmentTimeBetween(
+    List<AppointmentDTO> findDtosByDoctorIdAndAppointmentTimeBetween(
             @Param("doctorId") Long doctorId,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
     );
 
-    //    - **findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween**:
-//      - This method retrieves appointments for a specific doctor and patient name (ignoring case) within a given time range.
-//      - It performs a LEFT JOIN to fetch both the doctor and patient details along with the appointment times.
-//      - Return type: List<Appointment>
+    //    - **findDtosByDoctorIdAndPatientNameAndAppointmentTimeBetween**:
+//      - The same rows for a specific doctor and patient name (ignoring case) within a given time range.
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: Long doctorId, String patientName, LocalDateTime start, LocalDateTime end
-    @Query("SELECT a FROM Appointment a " +
-            "LEFT JOIN FETCH a.doctor d " +
-            "LEFT JOIN FETCH a.patient p " +
+    @Query(DTO_SELECT +
             "WHERE d.id = :doctorId " +
             "AND LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%')) " +
             "AND a.appointmentTime BETWEEN :start AND :end")
-    List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
+    List<AppointmentDTO> findDtosByDoctorIdAndPatientNameAndAppointmentTimeBetween(
             @Param("doctorId") Long doctorId,
             @Param("patientName") String patientName,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
     );
 
+    //    - **findDtosByDoctorIdAndPatientIdInAndAppointmentTimeBetween**:
+//      - The same as above, with the patient name predicate replaced by the patient ids NameSearchIndex matched.
+//      - Return type: List<AppointmentDTO>
+//      - Parameters: Long doctorId, Collection<Long> patientIds, LocalDateTime start, LocalDateTime end
+    @Query(DTO_SELECT +
+            "WHERE d.id = :doctorId " +
+            "AND p.id IN :patientIds " +
+            "AND a.appointmentTime BETWEEN :start AND :end")
+    List<AppointmentDTO> findDtosByDoctorIdAndPatientIdInAndAppointmentTimeBetween(
+            @Param("doctorId") Long doctorId,
+            @Param("patientIds") Collection<Long> patientIds,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    //    - **findDtoByDoctorIdAndAppointmentTime**:
+//      - This method retrieves the dashboard row of the one appointment a doctor has at a given start time, or null.
+//      - Return type: AppointmentDTO
+//      - Parameters: Long doctorId, LocalDateTime time
+    @Query(DTO_SELECT + "WHERE d.id = :doctorId AND a.appointmentTime = :time")
+    AppointmentDTO findDtoByDoctorIdAndAppointmentTime(@Param("doctorId") Long doctorId, @Param("time") LocalDateTime time);
+
     //    - **deleteAllByDoctorId**:
-//      - This method deletes all appointments associated with a particular doctor.
+//      - This method deletes all appointments associated with a particular doctor in one set-based DELETE.
 //      - It is marked as @Modifying and @Transactional, which makes it a modification query, ensuring that the operation is executed within a transaction.
-//      - Return type: void
+//      - An explicit query, because the derived delete would load every appointment and remove them one by one.
+//      - Return type: int (number of rows deleted)
 //      - Parameters: Long doctorId
     @Modifying
     @Transactional
-    public void deleteAllByDoctorId(Long doctorId);
+    @Query("DELETE FROM Appointment a WHERE a.doctor.id = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+
+    //    - **findIdsByDoctorId**:
+//      - This method retrieves the ids of a page of a doctor's appointments, in id order.
+//      - Used by doctor deletion to work through a doctor's history in chunks (see DoctorDeletionJobRunner).
+//      - Return type: List<Long>
+//      - Parameters: Long doctorId, Pageable page
+    @Query("SELECT a.id FROM Appointment a WHERE a.doctor.id = :doctorId ORDER BY a.id")
+    List<Long> findIdsByDoctorId(@Param("doctorId") Long doctorId, Pageable page);
 
     //    - **findByPatientId**:
 //      - This method retrieves all appointments for a specific patient.
-//      - Return type: List<Appointment>
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: Long patientId
-    public List<Appointment> findByPatientId(Long patientId);
+    @Query(DTO_SELECT + "WHERE p.id = :patientId")
+    List<AppointmentDTO> findByPatientId(@Param("patientId") Long patientId);
+
+    //    - **findVersionsByPatientId** / **findVersionsByDoctorIdAndAppointmentTimeBetween**:
+//      - These methods summarise the rows behind a patient's appointment list or a doctor's day in one aggregate row:
+//        count, sum of ids, and the summed versions of the appointments, their doctors and their patients.
+//      - Any insert, delete or update of those rows changes the result, so it serves as the list's ETag (see `etag`) without mapping a DTO.
+//      - Return type: List<Object[]> (a single row)
+//      - Parameters: Long patientId / Long doctorId, LocalDateTime start, LocalDateTime end
+    String VERSION_SELECT = "SELECT COUNT(a), COALESCE(SUM(a.id), 0), COALESCE(SUM(a.version), 0), " +
+            "COALESCE(SUM(d.version), 0), COALESCE(SUM(p.version), 0) " +
+            "FROM Appointment a JOIN a.doctor d JOIN a.patient p ";
+
+    @Query(VERSION_SELECT + "WHERE p.id = :patientId")
+    List<Object[]> findVersionsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(VERSION_SELECT + "WHERE d.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
+    List<Object[]> findVersionsByDoctorIdAndAppointmentTimeBetween(
+            @Param("doctorId") Long doctorId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    // a quoted, strong ETag from one of the version rows above, e.g. "3.42.7.12.3".
+    // Controllers check it before the list is read, so an unchanged list is answered with 304 before any DTO is
+    // mapped or serialized; one tag covers every filter of the list, since each filter is a subset of the same rows.
+    static String etag(List<Object[]> versions) {
+        StringJoiner tag = new StringJoiner(".", "\"", "\"");
+        for (Object value : versions.get(0)) {
+            tag.add(String.valueOf(value));
+        }
+        return tag.toString();
+    }
 
     //    - **findByPatient_IdAndStatusOrderByAppointmentTimeAsc**:
 //      - This method retrieves all appointments for a specific patient with a given status, ordered by the appointment time.
-//      - Return type: List<Appointment>
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: Long patientId, int status
-    public List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+    @Query(DTO_SELECT + "WHERE p.id = :patientId AND a.status = :status ORDER BY a.appointmentTime ASC")
+    List<AppointmentDTO> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(@Param("patientId") Long patientId, @Param("status") int status);
 
     //    - **filterByDoctorNameAndPatientId**:
 //      - This method retrieves appointments based on a doctor’s name (using a LIKE query) and the patient’s ID.
-//      - Return type: List<Appointment>
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: String doctorName, Long patientId
 //    - **filterByDoctorNameAndPatientIdAndStatus**:
 //      - This method retrieves appointments based on a doctor’s name (using a LIKE query), patient’s ID, and a specific appointment status.
-//      - Return type: List<Appointment>
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: String doctorName, Long patientId, int status
-    @Query("SELECT a FROM Appointment a " +
-            "LEFT JOIN FETCH a.doctor d " +
-            "LEFT JOIN FETCH a.patient p " +
+    @Query(DTO_SELECT +
             "WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) " +
             "AND p.id = :patientId")
-    List<Appointment> filterByDoctorNameAndPatientId(
+    List<AppointmentDTO> filterByDoctorNameAndPatientId(
             @Param("doctorName") String doctorName,
             @Param("patientId") Long patientId
     );
 
-    @Query("SELECT a FROM Appointment a " +
-            "LEFT JOIN FETCH a.doctor d " +
-            "LEFT JOIN FETCH a.patient p " +
+    @Query(DTO_SELECT +
             "WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) " +
             "AND p.id = :patientId " +
             "AND a.status = :status")
-    List<Appointment> filterByDoctorNameAndPatientIdAndStatus(
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(
             @Param("doctorName") String doctorName,
             @Param("patientId") Long patientId,
             @Param("status") int status
     );
 
+    //    - **filterByDoctorIdInAndPatientId** / **filterByDoctorIdInAndPatientIdAndStatus**:
+//      - The same as the two methods above, with the doctor name predicate replaced by the doctor ids NameSearchIndex matched.
+//      - Return type: List<AppointmentDTO>
+//      - Parameters: Collection<Long> doctorIds, Long patientId (, int status)
+    @Query(DTO_SELECT +
+            "WHERE d.id IN :doctorIds " +
+            "AND p.id = :patientId")
+    List<AppointmentDTO> filterByDoctorIdInAndPatientId(
+            @Param("doctorIds") Collection<Long> doctorIds,
+            @Param("patientId") Long patientId
+    );
+
+    @Query(DTO_SELECT +
+            "WHERE d.id IN :doctorIds " +
+            "AND p.id = :patientId " +
+            "AND a.status = :status")
+    List<AppointmentDTO> filterByDoctorIdInAndPatientIdAndStatus(
+            @Param("doctorIds") Collection<Long> doctorIds,
+            @Param("patientId") Long patientId,
+            @Param("status") int status
+    );
+
     //    - **updateStatus**:
 //      - This method updates the status of a specific appointment based on its ID.
 //      - Return type: void
 //      - Parameters: int status, long id
     @Modifying
-    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id")
+    @Query("UPDATE Appointment a SET a.status = :status, a.version = a.version + 1 WHERE a.id = :id")
     @Transactional
     void updateStatus(@Param("status") int status, @Param("id") long id);
 
+    //    - **updateStatusByIdIn**:
+//      - This method sets the status of many appointments in one set-based UPDATE.
+//      - Return type: int (number of rows updated)
+//      - Parameters: int status, Collection<Long> ids
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :status, a.version = a.version + 1 WHERE a.id IN :ids")
+    int updateStatusByIdIn(@Param("status") int status, @Param("ids") Collection<Long> ids);
+
+    //    - **findSlotsByIdIn** / **findSlotsByIdInAndDoctorId**:
+//      - These methods retrieve the given appointments as (id, doctorId, appointmentTime) rows, the second only the given doctor's;
+//        a bulk status change updates exactly these ids and records a change event for each.
+//      - Return type: List<Object[]>
+//      - Parameters: Collection<Long> ids (, Long doctorId)
+    @Query("SELECT a.id, a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.id IN :ids")
+    List<Object[]> findSlotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id, a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.id IN :ids AND a.doctor.id = :doctorId")
+    List<Object[]> findSlotsByIdInAndDoctorId(@Param("ids") Collection<Long> ids, @Param("doctorId") Long doctorId);
+
+    //    - **findBookedTimes**:
+//      - This method retrieves which of the given start times are already booked for the given doctors, as (doctorId, appointmentTime) pairs.
+//      - Used by batch booking to check a whole series against one snapshot; it is answered from the (doctor_id, appointment_time) unique index.
+//      - Return type: List<Object[]>
+//      - Parameters: Collection<Long> doctorIds, Collection<LocalDateTime> times
+    @Query("SELECT a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.doctor.id IN :doctorIds AND a.appointmentTime IN :times")
+    List<Object[]> findBookedTimes(@Param("doctorIds") Collection<Long> doctorIds, @Param("times") Collection<LocalDateTime> times);
+
+    //    - **findElapsedFuture**:
+//      - This method locks (SELECT ... FOR UPDATE) one page of appointments still marked future (0) that started before the cutoff,
+//        as (id, doctorId, appointmentTime) rows. The page size bounds how many rows each statement locks. Uses the (status, appointment_time) index.
+//      - Return type: List<Object[]>
+//      - Parameters: LocalDateTime cutoff, Pageable page (only the page size is used)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id, a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.status = 0 AND a.appointmentTime < :cutoff")
+    List<Object[]> findElapsedFuture(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    //    - **markPastByIdIn**:
+//      - This method flips the given appointments from status 0 (future) to 1 (past); rows no longer at 0 are left alone.
+//      - Return type: int (number of rows updated)
+//      - Parameters: Collection<Long> ids
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = 1, a.version = a.version + 1 WHERE a.status = 0 AND a.id IN :ids")
+    int markPastByIdIn(@Param("ids") Collection<Long> ids);
+
+    //    - **findOldestElapsedFuture**:
+//      - This method retrieves the start time of the oldest appointment still marked future although it started before the cutoff.
+//      - Return type: LocalDateTime (null when there is none)
+//      - Parameters: LocalDateTime cutoff
+    @Query("SELECT MIN(a.appointmentTime) FROM Appointment a WHERE a.status = 0 AND a.appointmentTime < :cutoff")
+    LocalDateTime findOldestElapsedFuture(@Param("cutoff") LocalDateTime cutoff);
+
 // 3. @Modifying and @Transactional annotations:
 //    - The @Modifying annotation is used to indicate that the method performs a modification operation (like DELETE or UPDATE).
 //    - The @Transactional annotation ensures that the modification is done within a transaction, meaning that if any exception occurs, the changes will be rolled back.
@@ -0,0 +1,56 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.DoctorDeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface DoctorDeletionJobRepository extends JpaRepository<DoctorDeletionJob, Long> {
+
+    //    - **findFirstByStatusInAndIdGreaterThanOrderByIdAsc**:
+//      - Retrieves the next job in one of the given statuses after the given id; with PENDING and RUNNING,
+//        the runner walks every unfinished job once per pass, so a failing job doesn't hold up the ones behind it.
+//      - Parameters: Collection<DoctorDeletionJob.Status> statuses, Long afterId
+    Optional<DoctorDeletionJob> findFirstByStatusInAndIdGreaterThanOrderByIdAsc(Collection<DoctorDeletionJob.Status> statuses, Long afterId);
+
+    //    - **findFirstByDoctorIdAndStatusIn**:
+//      - Retrieves a doctor's job in one of the given statuses, so deleting a doctor twice returns the unfinished job.
+//      - Parameters: Long doctorId, Collection<DoctorDeletionJob.Status> statuses
+    Optional<DoctorDeletionJob> findFirstByDoctorIdAndStatusIn(Long doctorId, Collection<DoctorDeletionJob.Status> statuses);
+
+    //    - **addProgress**:
+//      - Adds one finished chunk to the job's counters and clears the last error and the failure count; runs in the chunk's transaction.
+//      - Parameters: Long id, long appointments, long prescriptions, LocalDateTime now
+    @Modifying
+    @Query("UPDATE DoctorDeletionJob j SET j.status = com.project.back_end.models.DoctorDeletionJob.Status.RUNNING, j.appointmentsDeleted = j.appointmentsDeleted + :appointments, " +
+            "j.prescriptionsDeleted = j.prescriptionsDeleted + :prescriptions, j.lastError = NULL, j.attempts = 0, j.updatedAt = :now WHERE j.id = :id")
+    int addProgress(@Param("id") Long id, @Param("appointments") long appointments,
+                    @Param("prescriptions") long prescriptions, @Param("now") LocalDateTime now);
+
+    //    - **finish**:
+//      - Marks the job DONE; runs in the transaction that deletes the doctor row.
+//      - Parameters: Long id, LocalDateTime now
+    @Modifying
+    @Query("UPDATE DoctorDeletionJob j SET j.status = com.project.back_end.models.DoctorDeletionJob.Status.DONE, j.lastError = NULL, j.updatedAt = :now, j.finishedAt = :now WHERE j.id = :id")
+    int finish(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    //    - **recordError**:
+//      - Keeps the reason the job stopped, for the admin's progress view, and counts the failure.
+//      - The job is marked FAILED once it has failed maxAttempts times in a row, and is no longer resumed.
+//      - Parameters: Long id, String error, int maxAttempts, LocalDateTime now
+    @Modifying
+    @Transactional
+    @Query("UPDATE DoctorDeletionJob j SET j.lastError = :error, j.updatedAt = :now, j.attempts = j.attempts + 1, " +
+            "j.status = CASE WHEN j.attempts + 1 >= :maxAttempts THEN com.project.back_end.models.DoctorDeletionJob.Status.FAILED " +
+            "ELSE j.status END WHERE j.id = :id")
+    int recordError(@Param("id") Long id, @Param("error") String error, @Param("maxAttempts") int maxAttempts,
+                    @Param("now") LocalDateTime now);
+}
@@ -1,12 +1,19 @@
 package com.project.back_end.repo;
 
+import com.project.back_end.DTO.DoctorDTO;
 import com.project.back_end.models.Doctor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
@@ -25,6 +32,14 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 //      - Parameters: String email
     public Doctor findByEmail(String email);
 
+    //    - **findWithAvailableTimesById**:
+//      - This method retrieves a Doctor by id with the available times fetched in the same query.
+//      - Used by the availability index, which loads slots outside of any transaction.
+//      - Return type: Optional<Doctor>
+//      - Parameters: Long id
+    @Query("SELECT d FROM Doctor d LEFT JOIN FETCH d.availableTimes WHERE d.id = :id")
+    Optional<Doctor> findWithAvailableTimesById(@Param("id") Long id);
+
     //    - **findByNameLike**:
 //      - This method retrieves a list of Doctors whose name contains the provided search string (case-sensitive).
 //      - The `CONCAT('%', :name, '%')` is used to create a pattern for partial matching.
@@ -47,6 +62,114 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 //      - Return type: List<Doctor>
 //      - Parameters: String specialty
     public List<Doctor> findBySpecialtyIgnoreCase(String specialty);
+
+    //    - **findSlotsByDoctorIds**:
+//      - Like findAvailableTimesByDoctorIds, but doctors without any available time are still returned once as (doctorId, null),
+//        so callers can tell an existing doctor without slots from an unknown id. Doctors being deleted are left out.
+//      - Return type: List<Object[]>
+//      - Parameters: Collection<Long> doctorIds
+    @Query("SELECT d.id, t FROM Doctor d LEFT JOIN d.availableTimes t WHERE d.id IN :doctorIds AND d.deleting = false")
+    List<Object[]> findSlotsByDoctorIds(@Param("doctorIds") Collection<Long> doctorIds);
+
+    //    - **findByAvailablePeriodsIn** and the name/specialty variants below:
+//      - These methods apply the AM/PM filter in SQL through the indexed `availablePeriods` mask (see TimeSlot.masksWithPeriod),
+//        combined with the same name/specialty predicates as the queries above, so only matching doctors are returned.
+//      - Return type: List<Doctor>
+//      - Parameters: the name/specialty search values and Collection<Integer> periods
+    List<Doctor> findByAvailablePeriodsIn(Collection<Integer> periods);
+
+    List<Doctor> findBySpecialtyIgnoreCaseAndAvailablePeriodsIn(String specialty, Collection<Integer> periods);
+
+    @Query("SELECT d FROM Doctor d WHERE d.name LIKE CONCAT('%', :name, '%') AND d.availablePeriods IN :periods")
+    List<Doctor> findByNameLikeAndAvailablePeriodsIn(@Param("name") String name, @Param("periods") Collection<Integer> periods);
+
+    @Query("SELECT d FROM Doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%')) AND LOWER(d.specialty) = LOWER(:specialty) " +
+            "AND d.availablePeriods IN :periods")
+    List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCaseAndAvailablePeriodsIn(@Param("name") String name,
+                                                                                          @Param("specialty") String specialty,
+                                                                                          @Param("periods") Collection<Integer> periods);
+
+    //    - **findByIdInAndSpecialtyIgnoreCase** and the other `IdIn` variants:
+//      - The same filters as above, with the name predicate replaced by the ids NameSearchIndex matched,
+//        so the leading-wildcard LIKE never runs when the index can answer.
+//      - Return type: List<Doctor>
+//      - Parameters: Collection<Long> ids plus the specialty / periods values
+    List<Doctor> findByIdInAndSpecialtyIgnoreCase(Collection<Long> ids, String specialty);
+
+    List<Doctor> findByIdInAndAvailablePeriodsIn(Collection<Long> ids, Collection<Integer> periods);
+
+    List<Doctor> findByIdInAndSpecialtyIgnoreCaseAndAvailablePeriodsIn(Collection<Long> ids, String specialty, Collection<Integer> periods);
+
+    //    - **findAllNames**:
+//      - This method retrieves every doctor's (id, name) pair to build the name search index.
+//      - Return type: List<Object[]>
+    @Query("SELECT d.id, d.name FROM Doctor d")
+    List<Object[]> findAllNames();
+
+    //    - **findNamesByIdGreaterThan**:
+//      - This method retrieves the (id, name) pairs of doctors inserted after the given id, a primary key range scan.
+//      - The name search index merges them into its hits, since they may come from another node and not be indexed yet.
+//      - Return type: List<Object[]>
+//      - Parameters: long afterId
+    @Query("SELECT d.id, d.name FROM Doctor d WHERE d.id > :afterId")
+    List<Object[]> findNamesByIdGreaterThan(@Param("afterId") long afterId);
+
+    //    - **findIdsWithoutPeriods**:
+//      - This method retrieves a keyset page of ids of the doctors whose period mask has not been computed yet, in id order.
+//      - Return type: List<Long>
+//      - Parameters: long afterId, Pageable pageable (only the page size is used)
+    @Query("SELECT d.id FROM Doctor d WHERE d.availablePeriods IS NULL AND d.id > :afterId ORDER BY d.id")
+    List<Long> findIdsWithoutPeriods(@Param("afterId") long afterId, Pageable pageable);
+
+    //    - **updateAvailablePeriods**:
+//      - This method sets one period mask on many doctors in a single set-based UPDATE, without loading them.
+//      - Return type: int (number of rows updated)
+//      - Parameters: int periods, Collection<Long> ids
+    @Modifying
+    @Query("UPDATE Doctor d SET d.availablePeriods = :periods, d.version = d.version + 1 WHERE d.id IN :ids")
+    int updateAvailablePeriods(@Param("periods") int periods, @Param("ids") Collection<Long> ids);
+
+    //    - **findDirectoryPage**:
+//      - This method retrieves one keyset page of the doctor directory: doctors with an id greater than the cursor, in id order.
+//      - Rows are projected straight into DoctorDTO, so no Doctor entities or lazy collections are materialized.
+//      - Doctors being deleted are left out, as in findSlotsByDoctorIds.
+//      - Return type: List<DoctorDTO>
+//      - Parameters: long afterId, Pageable pageable (only the page size is used)
+    @Query("SELECT new com.project.back_end.DTO.DoctorDTO(d.id, d.name, d.specialty, d.email, d.phone) " +
+            "FROM Doctor d WHERE d.id > :afterId AND d.deleting = false ORDER BY d.id")
+    List<DoctorDTO> findDirectoryPage(@Param("afterId") long afterId, Pageable pageable);
+
+    //    - **findAvailableTimesByDoctorIds**:
+//      - This method retrieves the available times of many doctors in a single query, as (doctorId, time) pairs.
+//      - Return type: List<Object[]>
+//      - Parameters: Collection<Long> doctorIds
+    @Query("SELECT d.id, t FROM Doctor d JOIN d.availableTimes t WHERE d.id IN :doctorIds")
+    List<Object[]> findAvailableTimesByDoctorIds(@Param("doctorIds") Collection<Long> doctorIds);
+
+    //    - **findDirectoryEntries**:
+//      - This method retrieves the directory entries of the given doctors, projected like findDirectoryPage; missing ids
+//        and doctors being deleted are skipped.
+//      - Return type: List<DoctorDTO>
+//      - Parameters: Collection<Long> ids
+    @Query("SELECT new com.project.back_end.DTO.DoctorDTO(d.id, d.name, d.specialty, d.email, d.phone) " +
+            "FROM Doctor d WHERE d.id IN :ids AND d.deleting = false ORDER BY d.id")
+    List<DoctorDTO> findDirectoryEntries(@Param("ids") Collection<Long> ids);
+
+    //    - **withAvailableTimes**:
+//      - Fills in the available times of directory entries with one findAvailableTimesByDoctorIds query, and returns them.
+//      - Parameters: List<DoctorDTO> doctors (from findDirectoryPage or findDirectoryEntries)
+    default List<DoctorDTO> withAvailableTimes(List<DoctorDTO> doctors) {
+        if (!doctors.isEmpty()) {
+            Map<Long, DoctorDTO> byId = new HashMap<>();
+            for (DoctorDTO dto : doctors) {
+                byId.put(dto.getId(), dto);
+            }
+            for (Object[] row : findAvailableTimesByDoctorIds(byId.keySet())) {
+                byId.get((Long) row[0]).getAvailableTimes().add((String) row[1]);
+            }
+        }
+        return doctors;
+    }
 // 3. @Repository annotation:
 //    - The @Repository annotation marks this interface as a Spring Data JPA repository.
 //    - Spring Data JPA automatically implements this repository, providing the necessary CRUD functionality and custom queries defined in the interface.
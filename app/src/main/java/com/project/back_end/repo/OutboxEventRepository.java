@@ -0,0 +1,51 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    //    - **findPending**:
+//      - Retrieves unpublished events created before `before` that have failed fewer than `maxAttempts` times, oldest first.
+//      - Used by the relay to pick up events that were never dispatched (node crash, full queue) or whose handlers failed.
+//      - Parameters: LocalDateTime before, int maxAttempts, Pageable page (the batch size)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt IS NULL AND e.createdAt < :before " +
+            "AND e.attempts < :maxAttempts ORDER BY e.id")
+    List<OutboxEvent> findPending(@Param("before") LocalDateTime before, @Param("maxAttempts") int maxAttempts, Pageable page);
+
+    //    - **markPublished**:
+//      - Stamps an event as dispatched to every handler.
+//      - Parameters: Long id, LocalDateTime now
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :now WHERE e.id = :id")
+    int markPublished(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    //    - **recordFailure**:
+//      - Counts a failed dispatch; the event stays pending for the relay until it reaches outbox.max-attempts.
+//      - Parameters: Long id
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1 WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id);
+
+    //    - **deletePublishedBefore**:
+//      - Deletes up to `limit` events published before the cutoff.
+//      - Native for DELETE ... LIMIT, like AppointmentRepository.markElapsedAsPast, so retention never holds long locks.
+//      - Return type: int (number of rows deleted)
+//      - Parameters: LocalDateTime cutoff, int limit
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM outbox_event WHERE published_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
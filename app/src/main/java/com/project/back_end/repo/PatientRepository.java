@@ -2,8 +2,12 @@ package com.project.back_end.repo;
 
 import com.project.back_end.models.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     // 1. Extend JpaRepository:
@@ -24,6 +28,24 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
 //      - This method retrieves a Patient by either their email or phone number, allowing flexibility for the search.
 //      - Return type: Patient
 //      - Parameters: String email, String phone
+    @Query("SELECT p.id, p.name FROM Patient p")
+    List<Object[]> findAllNames();
+//    - **findAllNames**:
+//      - This method retrieves every patient's (id, name) pair to build the name search index.
+//      - Return type: List<Object[]>
+    @Query("SELECT p.id, p.name FROM Patient p WHERE p.id > :afterId")
+    List<Object[]> findNamesByIdGreaterThan(@Param("afterId") long afterId);
+//    - **findNamesByIdGreaterThan**:
+//      - This method retrieves the (id, name) pairs of patients inserted after the given id, a primary key range scan.
+//      - The name search index merges them into its hits, since they may come from another node and not be indexed yet.
+//      - Return type: List<Object[]>
+//      - Parameters: long afterId
+    @Query("SELECT p.version FROM Patient p WHERE p.id = :id")
+    Long findVersionById(@Param("id") Long id);
+//    - **findVersionById**:
+//      - This method retrieves only the version column of a patient, for the ETag of the patient details endpoint.
+//      - Return type: Long (null when there is no such patient)
+//      - Parameters: Long id
 
 // 3. @Repository annotation:
 //    - The @Repository annotation marks this interface as a Spring Data JPA repository.
@@ -3,7 +3,9 @@ package com.project.back_end.repo;
 import com.project.back_end.models.Prescription;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PrescriptionRepository extends MongoRepository<Prescription, Long> {
 // 1. Extend MongoRepository:
@@ -21,6 +23,24 @@ public interface PrescriptionRepository extends MongoRepository<Prescription, Lo
 //      - Parameters: Long appointmentId
 //      - MongoRepository automatically derives the query from the method name, in this case, it will find prescriptions by the appointment ID.
 
+    public List<Prescription> findByAppointmentIdIn(Collection<Long> appointmentIds);
+//    - **findByAppointmentIdIn**:
+//      - This method retrieves the prescriptions of many appointments in one `$in` query.
+//      - Return type: List<Prescription>
+//      - Parameters: Collection<Long> appointmentIds
 
-}
+    public Stream<Prescription> streamByAppointmentIdInOrderByAppointmentIdAscIdAsc(Collection<Long> appointmentIds);
+//    - **streamByAppointmentIdInOrderByAppointmentIdAscIdAsc**:
+//      - The same `$in` query, read lazily from the Mongo cursor in appointment order (served by idx_prescription_appointment).
+//      - The stream holds the cursor open and must be closed, e.g. with try-with-resources.
+//      - Return type: Stream<Prescription>
+//      - Parameters: Collection<Long> appointmentIds
+
+    public long deleteByAppointmentIdIn(Collection<Long> appointmentIds);
+//    - **deleteByAppointmentIdIn**:
+//      - This method deletes the prescriptions of many appointments with one `deleteMany` (served by idx_prescription_appointment).
+//      - Return type: long (number of prescriptions deleted)
+//      - Parameters: Collection<Long> appointmentIds
 
+
+}
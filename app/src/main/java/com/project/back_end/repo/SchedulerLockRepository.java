@@ -0,0 +1,26 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    //    - **tryAcquire**:
+//      - Takes (or renews) the lease on a job's lock row when it is free, expired, or already held by this owner.
+//      - Returns 1 when the caller holds the lease until `until`, 0 otherwise (including when the row doesn't exist yet).
+//      - Parameters: String name, String owner, LocalDateTime now, LocalDateTime until
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedBy = :owner, l.lockedUntil = :until " +
+            "WHERE l.name = :name AND (l.lockedUntil < :now OR l.lockedBy = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+}
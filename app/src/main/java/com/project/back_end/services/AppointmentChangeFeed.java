@@ -0,0 +1,151 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.OutboxEvent;
+import com.project.back_end.repo.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * In-process feed of appointment changes, pushed over Server-Sent Events to the doctor dashboards
+ * open on the affected (doctor, date).
+ * <p>
+ * Changes arrive as the appointment events AppointmentService records in the outbox, so they are delivered
+ * after commit on an outbox worker and a slow client never delays a booking. Added and updated rows are re-read
+ * as {@link AppointmentDTO} at delivery time, so a change that was superseded in between is skipped rather than
+ * shown out of order. Changes are not sent at all while nobody watches that day.
+ * <p>
+ * Only changes made on this node are seen; a client reloads the day whenever its stream (re)connects.
+ */
+@Component
+public class AppointmentChangeFeed implements OutboxHandler {
+
+    public enum Type { ADDED, UPDATED, CANCELLED }
+
+    private final AppointmentRepository appointmentRepository;
+    private final long timeoutMs;
+
+    private final Map<DayKey, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public AppointmentChangeFeed(AppointmentRepository appointmentRepository,
+                                 @Value("${appointments.feed.timeout-ms:1800000}") long timeoutMs) {
+        this.appointmentRepository = appointmentRepository;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Open a stream of changes to the doctor's appointments on the given date.
+     */
+    public SseEmitter subscribe(long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.computeIfAbsent(key, k -> new CopyOnWriteArraySet<>()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(key, emitter));
+        emitter.onTimeout(() -> unsubscribe(key, emitter));
+        emitter.onError(e -> unsubscribe(key, emitter));
+        return emitter;
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.Type type) {
+        return type != OutboxEvent.Type.DOCTOR_DELETED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        Long id = event.getAggregateId();
+        Long doctorId = Outbox.id(payload, "doctorId");
+        LocalDateTime time = Outbox.time(payload, "appointmentTime");
+        switch (event.getType()) {
+            case APPOINTMENT_BOOKED -> publish(Type.ADDED, doctorId, time, id);
+            case APPOINTMENT_CANCELLED -> publish(Type.CANCELLED, doctorId, time, id);
+            case APPOINTMENT_STATUS_CHANGED -> publish(Type.UPDATED, doctorId, time, id);
+            case APPOINTMENT_UPDATED -> {
+                // the same (doctor, date) sees an update; a move to another doctor or day is a cancel there and an add here
+                Long oldDoctorId = Outbox.id(payload, "oldDoctorId");
+                LocalDateTime oldTime = Outbox.time(payload, "oldAppointmentTime");
+                if (doctorId.equals(oldDoctorId) && time.toLocalDate().equals(oldTime.toLocalDate())) {
+                    publish(Type.UPDATED, doctorId, time, id);
+                } else {
+                    publish(Type.CANCELLED, oldDoctorId, oldTime, id);
+                    publish(Type.ADDED, doctorId, time, id);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // A cancelled change carries the id of the removed appointment; added and updated changes are looked up
+    // by (doctor, time), which identifies one appointment, so the id may be null (batch bookings).
+    private void publish(Type type, Long doctorId, LocalDateTime time, Long appointmentId) {
+        if (doctorId == null || time == null) {
+            return;
+        }
+        DayKey key = new DayKey(doctorId, time.toLocalDate());
+        if (subscribers.containsKey(key)) {
+            deliver(key, type, time, appointmentId);
+        }
+    }
+
+    // comment lines keep idle streams open through proxies and reveal dead clients
+    @Scheduled(fixedDelayString = "${appointments.feed.heartbeat-ms:30000}")
+    public void heartbeat() {
+        subscribers.forEach((key, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                send(key, emitter, SseEmitter.event().comment("keep-alive"));
+            }
+        });
+    }
+
+    private void deliver(DayKey key, Type type, LocalDateTime time, Long appointmentId) {
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("appointmentId", appointmentId);
+        change.put("appointmentTime", time);
+        if (type != Type.CANCELLED) {
+            AppointmentDTO dto = appointmentRepository.findDtoByDoctorIdAndAppointmentTime(key.doctorId(), time);
+            if (dto == null) {
+                return;
+            }
+            change.put("appointmentId", dto.getId());
+            change.put("appointment", dto);
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name(type.name().toLowerCase())
+                .data(change, MediaType.APPLICATION_JSON);
+        for (SseEmitter emitter : subscribers.getOrDefault(key, Set.of())) {
+            send(key, emitter, event);
+        }
+    }
+
+    private void send(DayKey key, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // client gone or emitter already completed
+            unsubscribe(key, emitter);
+        }
+    }
+
+    private void unsubscribe(DayKey key, SseEmitter emitter) {
+        subscribers.computeIfPresent(key, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private record DayKey(long doctorId, LocalDate date) {
+    }
+}
@@ -1,23 +1,37 @@
 package com.project.back_end.services;
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Doctor;
+import com.project.back_end.models.OutboxEvent;
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.AppointmentBatchRepository;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @Service
 public class AppointmentService {
     // 1. **Add @Service Annotation**:
@@ -27,21 +41,51 @@ public class AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
-    private final TokenService tokenService;
     private final UtilityService utilityService;
+    private final AvailabilityIndex availabilityIndex;
+    private final NameSearchIndex nameSearchIndex;
+    private final SlotLocks slotLocks;
+    private final AppointmentBatchRepository appointmentBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Outbox outbox;
+
+    // bookAppointment result codes
+    public static final int BOOKED = 1;
+    public static final int FAILED = 0;
+    public static final int DOCTOR_NOT_FOUND = -1;
+    public static final int SLOT_TAKEN = -2;
+    public static final int NOT_OFFERED = -3;
+    public static final int DUPLICATE_IN_BATCH = -4;
+    public static final int NOT_IN_FUTURE = -5;
+
+    // largest series accepted by bookAppointments, and ids per bulk status UPDATE
+    public static final int MAX_BATCH = 500;
+    private static final int STATUS_CHUNK = 1000;
+
+    private static final String SLOT_CONSTRAINT = "uk_appointment_doctor_time";
 
     public AppointmentService(
             AppointmentRepository appointmentRepository,
             PatientRepository patientRepository,
             DoctorRepository doctorRepository,
-            TokenService tokenService,
-            UtilityService utilityService
+            UtilityService utilityService,
+            AvailabilityIndex availabilityIndex,
+            NameSearchIndex nameSearchIndex,
+            SlotLocks slotLocks,
+            AppointmentBatchRepository appointmentBatchRepository,
+            PlatformTransactionManager transactionManager,
+            Outbox outbox
     ) {
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
-        this.tokenService = tokenService;
         this.utilityService = utilityService;
+        this.availabilityIndex = availabilityIndex;
+        this.nameSearchIndex = nameSearchIndex;
+        this.slotLocks = slotLocks;
+        this.appointmentBatchRepository = appointmentBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outbox = outbox;
     }
 // 2. **Constructor Injection for Dependencies**:
 //    - The `AppointmentService` class requires several dependencies like `AppointmentRepository`, `Service`, `TokenService`, `PatientRepository`, and `DoctorRepository`.
@@ -53,35 +97,105 @@ public class AppointmentService {
 //    - Instruction: Add the `@Transactional` annotation above methods that interact with the database, especially those modifying data.
 
     // 4. **Book Appointment Method**:
-//    - Responsible for saving the new appointment to the database.
-//    - If the save operation fails, it returns `0`; otherwise, it returns `1`.
-//    - Instruction: Ensure that the method handles any exceptions and returns an appropriate result code.
-    @Transactional
+//    - Validates the slot and saves the new appointment as one step, so two patients can't both get the same slot.
+//    - The check and insert run in their own transaction while holding the (doctor, date) slot lock; the lock is
+//      released only after commit, when the availability index already shows the slot as booked.
+//    - The unique (doctor_id, appointment_time) constraint rejects anything that slipped past the lock (another node).
+//    - Returns BOOKED (1), FAILED (0), DOCTOR_NOT_FOUND (-1), SLOT_TAKEN (-2) or NOT_OFFERED (-3).
+//      Only SLOT_TAKEN is a conflict: an offered slot someone else booked first. A time the doctor never offers is the client's mistake.
     public int bookAppointment(Appointment appointment) {
+        if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null) {
+            return DOCTOR_NOT_FOUND;
+        }
+        if (appointment.getAppointmentTime() == null) {
+            return FAILED;
+        }
+        Long doctorId = appointment.getDoctor().getId();
         try {
-            appointmentRepository.save(appointment);
-            return 1;
+            return slotLocks.withLock(doctorId, appointment.getAppointmentDate(), () -> transactionTemplate.execute(status -> {
+                int valid = utilityService.validateAppointment(appointment);
+                if (valid != 1) {
+                    return valid == -1 ? DOCTOR_NOT_FOUND : valid == 0 ? SLOT_TAKEN : NOT_OFFERED;
+                }
+                appointmentRepository.save(appointment);
+                availabilityIndex.markBooked(doctorId, appointment.getAppointmentTime());
+                recordEvent(OutboxEvent.Type.APPOINTMENT_BOOKED, appointment.getId(), doctorId, appointment.getAppointmentTime());
+                return BOOKED;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            if (isSlotConflict(e)) {
+                return SLOT_TAKEN;
+            }
+            System.out.println(e.getMessage());
+            return FAILED;
         } catch (Exception e) {
             System.out.println(e.getMessage());
-            return 0;
+            return FAILED;
         }
     }
 
+    private static boolean isSlotConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(SLOT_CONSTRAINT);
+    }
+
     // 5. **Update Appointment Method**:
 //    - This method is used to update an existing appointment based on its ID.
 //    - It validates whether the patient ID matches, checks if the appointment is available for updating, and ensures that the doctor is available at the specified time.
 //    - If the update is successful, it saves the appointment; otherwise, it returns an appropriate error message.
 //    - Instruction: Ensure proper validation and error handling is included for appointment updates.
-    @Transactional
+    // Runs under the slot lock of the new (doctor, date), like bookAppointment, and answers 409 when the new slot is taken.
     public ResponseEntity<Map<String, String>> updateAppointment(Appointment appointment) {
+        if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null || appointment.getAppointmentTime() == null) {
+            Map<String, String> response = new HashMap<>();
+            response.put("error", "please choose a different time or a different doctor");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        try {
+            return slotLocks.withLock(appointment.getDoctor().getId(), appointment.getAppointmentDate(),
+                    () -> transactionTemplate.execute(status -> updateAppointmentLocked(appointment)));
+        } catch (DataIntegrityViolationException e) {
+            Map<String, String> response = new HashMap<>();
+            if (isSlotConflict(e)) {
+                response.put("error", "please choose a different time or a different doctor");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            System.out.println(e.getMessage());
+            response.put("error", "there was an error updating the appointment.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> updateAppointmentLocked(Appointment appointment) {
         Map<String, String> response = new HashMap<>();
 
         Optional<Appointment> appt = appointmentRepository.findById(appointment.getId());
-        if (appt.isPresent() && utilityService.validateAppointment(appointment) == 1) {
-            appointmentRepository.save(appointment);
+        // the index counts the appointment's own slot as booked, so an update that keeps the doctor and time
+        // (e.g. only the status or patient changes) skips the slot check
+        boolean sameSlot = appt.isPresent()
+                && appt.get().getDoctor().getId().equals(appointment.getDoctor().getId())
+                && appt.get().getAppointmentTime().equals(appointment.getAppointmentTime());
+        int valid = sameSlot ? 1 : utilityService.validateAppointment(appointment);
+        if (appt.isPresent() && valid == 1) {
+            // copy the new values onto the managed entity rather than merging the request body: the body carries
+            // no version, so save() would fail the optimistic-lock check; dirty checking bumps the version at commit
+            Appointment managed = appt.get();
+            Long oldDoctorId = managed.getDoctor().getId();
+            LocalDateTime oldTime = managed.getAppointmentTime();
+            managed.setDoctor(doctorRepository.getReferenceById(appointment.getDoctor().getId()));
+            if (appointment.getPatient() != null && appointment.getPatient().getId() != null) {
+                managed.setPatient(patientRepository.getReferenceById(appointment.getPatient().getId()));
+            }
+            managed.setAppointmentTime(appointment.getAppointmentTime());
+            managed.setStatus(appointment.getStatus());
+            if (!sameSlot) {
+                availabilityIndex.markFreed(oldDoctorId, oldTime);
+                availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+            }
+            recordUpdate(appointment, oldDoctorId, oldTime);
             response.put("message", "update successful");
             return ResponseEntity.ok(response);
-        } else if (utilityService.validateAppointment(appointment) != 1) {
+        } else if (valid != 1) {
             response.put("error", "please choose a different time or a different doctor");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         } else {
@@ -90,6 +204,23 @@ public class AppointmentService {
         }
     }
 
+    private void recordUpdate(Appointment appointment, Long oldDoctorId, LocalDateTime oldTime) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("doctorId", appointment.getDoctor().getId());
+        payload.put("appointmentTime", appointment.getAppointmentTime());
+        payload.put("oldDoctorId", oldDoctorId);
+        payload.put("oldAppointmentTime", oldTime);
+        outbox.record(OutboxEvent.Type.APPOINTMENT_UPDATED, appointment.getId(), payload);
+    }
+
+    // side effects beyond the availability index (change feed, audit) run from the outbox after commit
+    private void recordEvent(OutboxEvent.Type type, Long appointmentId, Long doctorId, LocalDateTime time) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("doctorId", doctorId);
+        payload.put("appointmentTime", time);
+        outbox.record(type, appointmentId, payload);
+    }
+
     // 6. **Cancel Appointment Method**:
 //    - This method cancels an appointment by deleting it from the database.
 //    - It ensures the patient who owns the appointment is trying to cancel it and handles possible errors.
@@ -109,6 +240,9 @@ public class AppointmentService {
         Optional<Appointment> appt = appointmentRepository.findById(id);
         if (appt.isPresent()) {
             appointmentRepository.delete(appt.get());
+            availabilityIndex.markFreed(appt.get().getDoctor().getId(), appt.get().getAppointmentTime());
+            recordEvent(OutboxEvent.Type.APPOINTMENT_CANCELLED, id, appt.get().getDoctor().getId(),
+                    appt.get().getAppointmentTime());
             response.put("message", "the appointment has been cancelled/deleted");
             return ResponseEntity.ok(response);
         } else {
@@ -117,26 +251,32 @@ public class AppointmentService {
         }
     }
 
+    // ETag of a doctor's day, from the version columns of its appointments, their doctor and patients (see AppointmentRepository.etag).
+    @Transactional(readOnly = true)
+    public String doctorDayEtag(Long doctorId, LocalDate date) {
+        return AppointmentRepository.etag(appointmentRepository
+                .findVersionsByDoctorIdAndAppointmentTimeBetween(doctorId, date.atStartOfDay(), date.atTime(23, 59, 59)));
+    }
+
     // 7. **Get Appointments Method**:
 //    - This method retrieves a list of appointments for a specific doctor on a particular day, optionally filtered by the patient's name.
 //    - It uses `@Transactional` to ensure that database operations are consistent and handled in a single transaction.
 //    - Instruction: Ensure the correct use of transaction boundaries, especially when querying the database for appointments.
     //todo double check this method.
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> getAppointment(
             LocalDate date,
             String patientName,    // ← new parameter
-            String token
+            AuthPrincipal principal
     ) {
         Map<String, Object> response = new HashMap<>();
-        String email = tokenService.extractEmail(token);
-        Doctor doc = doctorRepository.findByEmail(email);
 
-        // Step 1: Validate input
-        if (doc == null || doc.getId() == null || date == null) {
+        // Step 1: Validate input; the doctor id comes straight from the authenticated principal
+        if (principal == null || !principal.hasRole("doctor") || principal.getId() == null || date == null) {
             response.put("message", "Doctor ID and date are required.");
             return response;
         }
+        Long doctorId = principal.getId();
 
         // Step 2: Create time range for the specified date
         LocalDateTime start = date.atStartOfDay();       // e.g. 2025-07-11T00:00:00
@@ -148,27 +288,30 @@ public class AppointmentService {
                 : "";
 
         try {
-            List<Appointment> appointments;
+            List<AppointmentDTO> dtos;
             // Step 3: Query with name filter and date range
             //if name is empty
             //findby doctorid and appointmenttime between
             //else
             if (nameFilter.isEmpty() || nameFilter.equals("null")) {
-                appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doc.getId(),start,end);
+                dtos = appointmentRepository.findDtosByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
             } else {
-                appointments = appointmentRepository
-                        .findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-                                doc.getId(),
-                                nameFilter,
-                                start,
-                                end
-                        );
+                // patient ids from the trigram index when it can answer, the LIKE query otherwise
+                Set<Long> patientIds = nameSearchIndex.searchPatientNames(nameFilter);
+                if (patientIds == null) {
+                    dtos = appointmentRepository
+                            .findDtosByDoctorIdAndPatientNameAndAppointmentTimeBetween(
+                                    doctorId,
+                                    nameFilter,
+                                    start,
+                                    end
+                            );
+                } else {
+                    dtos = appointmentRepository
+                            .findDtosByDoctorIdAndPatientIdInAndAppointmentTimeBetween(doctorId, patientIds, start, end);
+                }
             }
 
-            List<AppointmentDTO> dtos = appointments
-                    .stream()
-                    .map(AppointmentDTO::new)
-                    .toList();
             // Step 4: Prepare the response
             response.put("message", "Appointments retrieved successfully.");
             response.put("appointments", dtos);
@@ -194,6 +337,8 @@ public class AppointmentService {
         if (appt.isPresent()) {
             try {
                 appointmentRepository.updateStatus(status, appointmentId);
+                recordEvent(OutboxEvent.Type.APPOINTMENT_STATUS_CHANGED, appointmentId, appt.get().getDoctor().getId(),
+                        appt.get().getAppointmentTime());
                 response.put("message", "Appointment status updated successfully.");
                 return ResponseEntity.ok(response);
             } catch (Exception e) {
@@ -206,4 +351,141 @@ public class AppointmentService {
         }
     }
 
+
+// 9. **Batch Booking Method**:
+//    - Books a whole series (e.g. weekly sessions) in one transaction, all or nothing.
+//    - Every item is checked against one snapshot taken under the slot locks of all its (doctor, date) keys:
+//      the doctors' slots and which of the requested start times are already booked, two queries in total.
+//    - Rows are inserted with JDBC batching (see AppointmentBatchRepository), which skips bean validation,
+//      so the @Future check on appointmentTime is done here before anything is locked.
+//    - Returns one code per item, in request order: 1 (free), 0 (incomplete item), -1 (doctor not found), -2 (slot taken),
+//      -3 (time not offered by the doctor), -4 (the same doctor and time earlier in this series) or -5 (time not in the future).
+//      Nothing is inserted unless every code is 1.
+    public List<Integer> bookAppointments(List<Appointment> appointments) {
+        List<Integer> codes = new ArrayList<>(Collections.nCopies(appointments.size(), BOOKED));
+        Set<SlotLocks.Key> keys = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null) {
+                codes.set(i, DOCTOR_NOT_FOUND);
+            } else if (appointment.getPatient() == null || appointment.getPatient().getId() == null
+                    || appointment.getAppointmentTime() == null) {
+                codes.set(i, FAILED);
+            } else if (!appointment.getAppointmentTime().isAfter(now)) {
+                codes.set(i, NOT_IN_FUTURE);
+            } else {
+                keys.add(new SlotLocks.Key(appointment.getDoctor().getId(), appointment.getAppointmentDate()));
+            }
+        }
+        if (!allBooked(codes)) {
+            return codes;
+        }
+        try {
+            return slotLocks.withLocks(keys, () -> transactionTemplate.execute(status -> bookAppointmentsLocked(appointments, codes)));
+        } catch (DataIntegrityViolationException e) {
+            // a slot taken by another node, or e.g. a patient id that doesn't exist; the whole series was rolled back
+            if (!isSlotConflict(e)) {
+                System.out.println(e.getMessage());
+            }
+            Collections.fill(codes, isSlotConflict(e) ? SLOT_TAKEN : FAILED);
+            return codes;
+        }
+    }
+
+    private List<Integer> bookAppointmentsLocked(List<Appointment> appointments, List<Integer> codes) {
+        Set<Long> doctorIds = new HashSet<>();
+        Set<LocalDateTime> times = new HashSet<>();
+        for (Appointment appointment : appointments) {
+            doctorIds.add(appointment.getDoctor().getId());
+            times.add(appointment.getAppointmentTime());
+        }
+
+        // the snapshot: offered slots per existing doctor, and which requested start times are taken
+        Map<Long, Set<Integer>> offered = new HashMap<>();
+        for (Object[] row : doctorRepository.findSlotsByDoctorIds(doctorIds)) {
+            Set<Integer> slots = offered.computeIfAbsent((Long) row[0], id -> new HashSet<>());
+            if (row[1] != null) {
+                slots.add(TimeSlot.parse((String) row[1]));
+            }
+        }
+        Map<Long, Set<LocalDateTime>> takenBefore = new HashMap<>();
+        for (Object[] row : appointmentRepository.findBookedTimes(doctorIds, times)) {
+            takenBefore.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((LocalDateTime) row[1]);
+        }
+        // start times already claimed by earlier items of this series
+        Map<Long, Set<LocalDateTime>> inSeries = new HashMap<>();
+
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            Long doctorId = appointment.getDoctor().getId();
+            LocalDateTime time = appointment.getAppointmentTime();
+            Set<Integer> slots = offered.get(doctorId);
+            if (slots == null) {
+                codes.set(i, DOCTOR_NOT_FOUND);
+            } else if (!slots.contains(TimeSlot.oneHourFrom(time.getHour() * 60 + time.getMinute()))) {
+                codes.set(i, NOT_OFFERED);
+            } else if (takenBefore.getOrDefault(doctorId, Set.of()).contains(time)) {
+                codes.set(i, SLOT_TAKEN);
+            } else if (!inSeries.computeIfAbsent(doctorId, id -> new HashSet<>()).add(time)) {
+                codes.set(i, DUPLICATE_IN_BATCH);
+            }
+        }
+        if (allBooked(codes)) {
+            appointmentBatchRepository.insertAll(appointments);
+            for (Appointment appointment : appointments) {
+                availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+                recordEvent(OutboxEvent.Type.APPOINTMENT_BOOKED, appointment.getId(), appointment.getDoctor().getId(),
+                        appointment.getAppointmentTime());
+            }
+        }
+        return codes;
+    }
+
+    private static boolean allBooked(List<Integer> codes) {
+        for (int code : codes) {
+            if (code != BOOKED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+// 10. **Bulk Change Status Method**:
+//    - Sets the status of many appointments with set-based UPDATEs of at most STATUS_CHUNK ids each, instead of one findById and UPDATE per id.
+//    - Each chunk first reads the (id, doctor, time) of the rows it will update, so an APPOINTMENT_STATUS_CHANGED event is recorded
+//      per row and open dashboards see the change, as with changeStatus.
+//    - Admins may update any appointment; doctors only their own (other ids are skipped). Returns the number of rows updated.
+    @Transactional
+    public ResponseEntity<Map<String, Object>> changeStatuses(List<Long> ids, int status, AuthPrincipal principal) {
+        Map<String, Object> response = new HashMap<>();
+        boolean admin = principal.hasRole("admin");
+        if (!admin && !principal.hasRole("doctor")) {
+            response.put("error", "unauthorized");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        int updated = 0;
+        for (int from = 0; from < distinct.size(); from += STATUS_CHUNK) {
+            List<Long> chunk = distinct.subList(from, Math.min(distinct.size(), from + STATUS_CHUNK));
+            List<Object[]> rows = admin
+                    ? appointmentRepository.findSlotsByIdIn(chunk)
+                    : appointmentRepository.findSlotsByIdInAndDoctorId(chunk, principal.getId());
+            if (rows.isEmpty()) {
+                continue;
+            }
+            List<Long> found = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                found.add((Long) row[0]);
+            }
+            updated += appointmentRepository.updateStatusByIdIn(status, found);
+            for (Object[] row : rows) {
+                recordEvent(OutboxEvent.Type.APPOINTMENT_STATUS_CHANGED, (Long) row[0], (Long) row[1], (LocalDateTime) row[2]);
+            }
+        }
+        response.put("message", "Appointment statuses updated successfully.");
+        response.put("updated", updated);
+        return ResponseEntity.ok(response);
+    }
+
 }
@@ -0,0 +1,108 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.OutboxEvent;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.SchedulerLockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves appointments whose time has passed from status 0 (future) to 1 (past).
+ * <p>
+ * Each run is a series of bounded chunks, each in its own short transaction, until a chunk comes back short:
+ * lock up to chunk-size elapsed rows ({@code SELECT ... FOR UPDATE}), flip them by id, and record an
+ * {@code APPOINTMENT_STATUS_CHANGED} outbox event per row so open dashboards see the change. Only the node
+ * holding the lease on the "appointment-status" row of scheduler_lock does the work, and the lease is renewed
+ * between chunks; a run that overlaps with another node's after a lost lease waits on the row locks and then
+ * skips the rows already flipped, so each row is flipped and reported once.
+ * <p>
+ * Metrics: {@code appointments.status.transitioned} counts updated rows, and
+ * {@code appointments.status.lag.seconds} is how long the oldest elapsed appointment has been waiting
+ * for its flip (0 when caught up). Every node measures the lag on each tick, with or without the lease,
+ * so all nodes export the same current value; aggregate it across nodes with max, not sum.
+ */
+@Component
+public class AppointmentStatusJob {
+
+    static final String LOCK_NAME = "appointment-status";
+
+    private final AppointmentRepository appointmentRepository;
+    private final Outbox outbox;
+    private final JobLease lease;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter transitioned;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private final int chunkSize;
+    private final Duration grace;
+
+    public AppointmentStatusJob(AppointmentRepository appointmentRepository,
+                                SchedulerLockRepository schedulerLockRepository,
+                                PlatformTransactionManager transactionManager,
+                                Outbox outbox,
+                                MeterRegistry meterRegistry,
+                                @Value("${appointments.status-job.chunk-size:1000}") int chunkSize,
+                                @Value("${appointments.status-job.grace-minutes:60}") long graceMinutes,
+                                @Value("${appointments.status-job.lease-seconds:120}") long leaseSeconds) {
+        this.appointmentRepository = appointmentRepository;
+        this.outbox = outbox;
+        this.lease = new JobLease(schedulerLockRepository, LOCK_NAME, Duration.ofSeconds(leaseSeconds));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transitioned = meterRegistry.counter("appointments.status.transitioned");
+        Gauge.builder("appointments.status.lag.seconds", lagSeconds, AtomicLong::get).register(meterRegistry);
+        this.chunkSize = chunkSize;
+        this.grace = Duration.ofMinutes(graceMinutes);
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.status-job.interval-ms:60000}")
+    public void run() {
+        // an appointment counts as past once it has started and the grace period (its length) is over
+        LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+        if (lease.acquire()) {
+            int updated;
+            do {
+                updated = transactionTemplate.execute(status -> flipChunk(cutoff));
+                transitioned.increment(updated);
+            } while (updated == chunkSize && lease.acquire());
+        }
+
+        // measured on every node, not just the lease holder, so no node exports a stale or zero lag;
+        // one MIN over the (status, appointment_time) index
+        LocalDateTime oldest = appointmentRepository.findOldestElapsedFuture(cutoff);
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, cutoff).toSeconds());
+    }
+
+    private int flipChunk(LocalDateTime cutoff) {
+        List<Object[]> rows = appointmentRepository.findElapsedFuture(cutoff, PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+        }
+        appointmentRepository.markPastByIdIn(ids);
+        for (Object[] row : rows) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("doctorId", row[1]);
+            payload.put("appointmentTime", row[2]);
+            outbox.record(OutboxEvent.Type.APPOINTMENT_STATUS_CHANGED, (Long) row[0], payload);
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.OutboxEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Logs one audit line per committed appointment or doctor change. The outbox rows themselves stay
+ * queryable until {@code outbox.retention-days}.
+ */
+@Component
+public class AuditTrail implements OutboxHandler {
+
+    @Override
+    public boolean supports(OutboxEvent.Type type) {
+        return true;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        System.out.println("audit " + event.getCreatedAt() + " " + event.getType()
+                + " id=" + event.getAggregateId() + " " + payload);
+    }
+}
@@ -0,0 +1,225 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory availability index used by DoctorService.getDoctorAvailability.
+ * <p>
+ * For every doctor we keep the configured slots parsed once, and for every (doctor, date)
+ * a bitmap of booked start minutes (1440 bits per day). Bitmaps are copy-on-write so readers
+ * never lock. AppointmentService keeps the index current after each commit and
+ * {@link #reconcile()} periodically reloads it from the appointment table.
+ * <p>
+ * Only days from today up to {@code availability.index.horizon-days} ahead are cached; other dates
+ * are read from MySQL on every request, so arbitrary far-future lookups can't grow the map.
+ * <p>
+ * Misses are loaded outside the maps and installed with {@code putIfAbsent}, so no query runs while a map bin
+ * is locked. Every change to a doctor's cached entries first bumps that doctor's change stripe; a load that
+ * saw its stripe move while the query ran may have missed that change, so it is answered but not cached.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int CHANGE_STRIPES = 64;
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    private final Map<Long, DoctorSlots> slotsByDoctor = new ConcurrentHashMap<>();
+    private final Map<DayKey, BitSet> bookedByDay = new ConcurrentHashMap<>();
+    private final AtomicLongArray changes = new AtomicLongArray(CHANGE_STRIPES);
+    private final int horizonDays;
+
+    public AvailabilityIndex(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
+                             @Value("${availability.index.horizon-days:90}") int horizonDays) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.horizonDays = horizonDays;
+    }
+
+    /**
+     * Return the doctor's slots that have no appointment starting at the slot's start time.
+     * An unknown doctor yields an empty list.
+     */
+    public List<String> getAvailability(Long doctorId, LocalDate date) {
+        DoctorSlots slots = slotsFor(doctorId);
+        if (slots == null) {
+            return new ArrayList<>();
+        }
+        BitSet booked = bookedFor(doctorId, date);
+
+        List<String> free = new ArrayList<>(slots.labels().length);
+        for (int i = 0; i < slots.labels().length; i++) {
+            int slot = slots.packed()[i];
+            if (slot == TimeSlot.INVALID || !booked.get(TimeSlot.start(slot))) {
+                free.add(slots.labels()[i]);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Check a single packed slot (see TimeSlot) without building the availability list.
+     * Returns 1 if the doctor offers the slot and it is free, 0 if it is booked, -2 if the doctor
+     * doesn't offer it and -1 if the doctor doesn't exist.
+     */
+    public int checkSlot(Long doctorId, LocalDate date, int slot) {
+        DoctorSlots slots = slotsFor(doctorId);
+        if (slots == null) {
+            return -1;
+        }
+        for (int offered : slots.packed()) {
+            if (offered == slot) {
+                return bookedFor(doctorId, date).get(TimeSlot.start(slot)) ? 0 : 1;
+            }
+        }
+        return -2;
+    }
+
+    /**
+     * Record a booking once the surrounding transaction commits.
+     */
+    public void markBooked(Long doctorId, LocalDateTime time) {
+        TransactionHooks.afterCommit(() -> update(doctorId, time, true));
+    }
+
+    /**
+     * Release a booking once the surrounding transaction commits.
+     */
+    public void markFreed(Long doctorId, LocalDateTime time) {
+        TransactionHooks.afterCommit(() -> update(doctorId, time, false));
+    }
+
+    /**
+     * Drop everything cached for a doctor, e.g. after their slots changed or they were deleted.
+     */
+    public void evictDoctor(Long doctorId) {
+        TransactionHooks.afterCommit(() -> {
+            changes.incrementAndGet(stripe(doctorId));
+            slotsByDoctor.remove(doctorId);
+            bookedByDay.keySet().removeIf(key -> key.doctorId() == doctorId);
+        });
+    }
+
+    /**
+     * Reload every cached day from MySQL and forget days outside the horizon. This picks up bookings
+     * made by other nodes and heals any update lost to a race with a concurrent load.
+     * <p>
+     * A reloaded day only replaces the bitmap it was loaded for: markBooked/markFreed always install a
+     * new copy, so if one landed while the query ran the entry is no longer the same object and the
+     * (possibly older) reload is dropped; the next pass picks that day up again. Clearing the slot
+     * cache needs no such check, as it only forces a fresh read.
+     */
+    @Scheduled(fixedDelayString = "${availability.index.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        slotsByDoctor.clear();
+        for (DayKey key : List.copyOf(bookedByDay.keySet())) {
+            if (!cacheable(key.date())) {
+                bookedByDay.remove(key);
+                continue;
+            }
+            BitSet before = bookedByDay.get(key);
+            if (before == null) {
+                continue;
+            }
+            BitSet reloaded = load(key);
+            bookedByDay.computeIfPresent(key, (k, current) -> current == before ? reloaded : current);
+        }
+    }
+
+    private void update(Long doctorId, LocalDateTime time, boolean booked) {
+        if (doctorId == null || time == null) {
+            return;
+        }
+        int minute = time.getHour() * 60 + time.getMinute();
+        changes.incrementAndGet(stripe(doctorId));
+        // days that are not loaded yet will read the committed row on first access
+        bookedByDay.computeIfPresent(new DayKey(doctorId, time.toLocalDate()), (key, bits) -> {
+            BitSet copy = (BitSet) bits.clone();
+            copy.set(minute, booked);
+            return copy;
+        });
+    }
+
+    private DoctorSlots slotsFor(Long doctorId) {
+        DoctorSlots cached = slotsByDoctor.get(doctorId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = changes.get(stripe(doctorId));
+        // a doctor being deleted is treated as unknown: no availability, and no bookings
+        DoctorSlots loaded = doctorRepository.findWithAvailableTimesById(doctorId)
+                .filter(doctor -> !doctor.isDeleting())
+                .map(AvailabilityIndex::parseSlots)
+                .orElse(null);
+        if (loaded == null || changes.get(stripe(doctorId)) != seen) {
+            return loaded;
+        }
+        DoctorSlots raced = slotsByDoctor.putIfAbsent(doctorId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private BitSet bookedFor(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        if (!cacheable(date)) {
+            return load(key);
+        }
+        BitSet cached = bookedByDay.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = changes.get(stripe(doctorId));
+        BitSet loaded = load(key);
+        if (changes.get(stripe(doctorId)) != seen) {
+            return loaded;
+        }
+        BitSet raced = bookedByDay.putIfAbsent(key, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private static int stripe(long doctorId) {
+        return Long.hashCode(doctorId) & (CHANGE_STRIPES - 1);
+    }
+
+    private boolean cacheable(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return !date.isBefore(today) && !date.isAfter(today.plusDays(horizonDays));
+    }
+
+    private BitSet load(DayKey key) {
+        LocalDateTime start = key.date().atStartOfDay();
+        LocalDateTime end = key.date().atTime(23, 59, 59);
+        BitSet bits = new BitSet(MINUTES_PER_DAY);
+        for (LocalDateTime time : appointmentRepository.findAppointmentTimes(key.doctorId(), start, end)) {
+            bits.set(time.getHour() * 60 + time.getMinute());
+        }
+        return bits;
+    }
+
+    private static DoctorSlots parseSlots(Doctor doctor) {
+        List<String> times = doctor.getAvailableTimes() != null ? doctor.getAvailableTimes() : List.of();
+        return new DoctorSlots(times.toArray(new String[0]), doctor.getPackedSlots());
+    }
+
+    private record DayKey(long doctorId, LocalDate date) {
+    }
+
+    private record DoctorSlots(String[] labels, int[] packed) {
+    }
+}
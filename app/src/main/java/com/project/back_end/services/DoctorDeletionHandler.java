@@ -0,0 +1,36 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.OutboxEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Starts the deletion job recorded by DoctorService.deleteDoctor as soon as it commits, instead of waiting for
+ * the runner's next scheduled resume. The job runs on the application task executor so a long deletion doesn't
+ * tie up an outbox worker; its progress lives in the job row, not in the event.
+ */
+@Component
+public class DoctorDeletionHandler implements OutboxHandler {
+
+    private final DoctorDeletionJobRunner jobRunner;
+    private final AsyncTaskExecutor executor;
+
+    public DoctorDeletionHandler(DoctorDeletionJobRunner jobRunner,
+                                 @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.jobRunner = jobRunner;
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.Type type) {
+        return type == OutboxEvent.Type.DOCTOR_DELETED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        executor.execute(jobRunner::runPending);
+    }
+}
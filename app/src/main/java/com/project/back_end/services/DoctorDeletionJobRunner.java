@@ -0,0 +1,128 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorDeletionJobRepository;
+import com.project.back_end.repo.SchedulerLockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Carries out doctor deletion jobs (see DoctorService.deleteDoctor), oldest first.
+ * <p>
+ * Each pass walks the unfinished jobs in id order, so a job that keeps failing (MongoDB down, a bad row) only costs
+ * one attempt per pass instead of blocking the jobs behind it. After {@code doctor.delete.max-attempts} failures in
+ * a row the job is marked FAILED and left alone.
+ * <p>
+ * Each chunk reads the ids of up to {@code doctor.delete.chunk-size} of the doctor's appointments, deletes their
+ * prescriptions from MongoDB with one {@code deleteMany}, then deletes the appointments by id and adds to the job's
+ * counters in one short MySQL transaction. A chunk interrupted between the two stores is simply redone on resume.
+ * Once no appointments are left, anything booked meanwhile goes with its prescriptions, then the doctor row, and the
+ * job is DONE. The doctor is flagged {@code deleting} when the job is created, so new bookings are refused; if one
+ * still slips in after the last look, its foreign key fails the final step and the job simply runs again.
+ * <p>
+ * Jobs run on one node at a time (lease "doctor-deletion"). DoctorDeletionHandler starts a run right after the
+ * request commits; the scheduled resume picks up whatever a failed or restarted run left unfinished.
+ */
+@Component
+public class DoctorDeletionJobRunner {
+
+    static final String LOCK_NAME = "doctor-deletion";
+    private static final List<DoctorDeletionJob.Status> UNFINISHED =
+            List.of(DoctorDeletionJob.Status.PENDING, DoctorDeletionJob.Status.RUNNING);
+
+    private final DoctorDeletionJobRepository jobRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PrescriptionService prescriptionService;
+    private final DoctorService doctorService;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLease lease;
+    // the lease is reentrant for this node, so keep the outbox kick and the schedule from running side by side
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final int chunkSize;
+    private final int maxAttempts;
+
+    public DoctorDeletionJobRunner(DoctorDeletionJobRepository jobRepository,
+                                   AppointmentRepository appointmentRepository,
+                                   PrescriptionService prescriptionService,
+                                   DoctorService doctorService,
+                                   SchedulerLockRepository schedulerLockRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${doctor.delete.chunk-size:1000}") int chunkSize,
+                                   @Value("${doctor.delete.lease-seconds:120}") long leaseSeconds,
+                                   @Value("${doctor.delete.max-attempts:5}") int maxAttempts) {
+        this.jobRepository = jobRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionService = prescriptionService;
+        this.doctorService = doctorService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lease = new JobLease(schedulerLockRepository, LOCK_NAME, Duration.ofSeconds(leaseSeconds));
+        this.chunkSize = chunkSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${doctor.delete.resume-interval-ms:60000}")
+    public void runPending() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long after = 0;
+            Optional<DoctorDeletionJob> job;
+            while (lease.acquire()
+                    && (job = jobRepository.findFirstByStatusInAndIdGreaterThanOrderByIdAsc(UNFINISHED, after)).isPresent()) {
+                run(job.get());
+                after = job.get().getId();
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Runs one job to completion. A failure is recorded against the job; a lost lease just stops,
+    // and in both cases the job is left for the next pass.
+    private void run(DoctorDeletionJob job) {
+        Long doctorId = job.getDoctorId();
+        try {
+            List<Long> ids;
+            while (!(ids = appointmentRepository.findIdsByDoctorId(doctorId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                List<Long> chunk = ids;
+                long prescriptions = prescriptionService.deletePrescriptionsByAppointmentIds(chunk);
+                transactionTemplate.executeWithoutResult(status -> {
+                    appointmentRepository.deleteAllByIdInBatch(chunk);
+                    jobRepository.addProgress(job.getId(), chunk.size(), prescriptions, LocalDateTime.now());
+                });
+                if (!lease.acquire()) {
+                    return;
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                // booked since the last chunk: their prescriptions go too, and the doctor row only once they are gone
+                List<Long> late = appointmentRepository.findIdsByDoctorId(doctorId, Pageable.unpaged());
+                long prescriptions = prescriptionService.deletePrescriptionsByAppointmentIds(late);
+                if (!late.isEmpty()) {
+                    appointmentRepository.deleteAllByIdInBatch(late);
+                    jobRepository.addProgress(job.getId(), late.size(), prescriptions, LocalDateTime.now());
+                }
+                doctorService.removeDoctor(doctorId);
+                jobRepository.finish(job.getId(), LocalDateTime.now());
+            });
+        } catch (Exception e) {
+            System.out.println("Doctor deletion job " + job.getId() + " failed: " + e.getMessage());
+            String error = String.valueOf(e.getMessage());
+            jobRepository.recordError(job.getId(), error.substring(0, Math.min(error.length(), 500)), maxAttempts, LocalDateTime.now());
+        }
+    }
+}
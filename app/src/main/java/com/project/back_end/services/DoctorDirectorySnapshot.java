@@ -0,0 +1,198 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.DoctorDTO;
+import com.project.back_end.repo.DoctorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The whole public doctor directory (GET /doctor without paging) kept as ready-to-send bytes: the JSON array,
+ * its gzip encoding, and a strong ETag per encoding derived from a hash of the JSON, so identical content gets
+ * the same ETag on every node.
+ * <p>
+ * Each doctor's entry is serialized once and kept in id order. DoctorService reports added, updated and deleted
+ * doctors after commit; only those entries are reloaded and re-serialized, on the application task executor, before
+ * the array and its gzip form are reassembled. A periodic full rebuild picks up changes made on other nodes.
+ */
+@Component
+public class DoctorDirectorySnapshot {
+
+    public record Blob(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+    }
+
+    private static final int PAGE_SIZE = 500;
+
+    private final DoctorRepository doctorRepository;
+    private final ObjectMapper objectMapper;
+    private final AsyncTaskExecutor executor;
+    private final Timer buildTimer;
+
+    // serialized entry per doctor id, guarded by this
+    private NavigableMap<Long, byte[]> entries = new TreeMap<>();
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+    private volatile Blob blob;
+
+    public DoctorDirectorySnapshot(DoctorRepository doctorRepository, ObjectMapper objectMapper,
+                                   @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                   MeterRegistry meterRegistry) {
+        this.doctorRepository = doctorRepository;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.buildTimer = meterRegistry.timer("doctor.directory.snapshot.build");
+    }
+
+    /**
+     * The current snapshot, built on first use.
+     */
+    public Blob current() {
+        Blob current = blob;
+        if (current == null) {
+            synchronized (this) {
+                if (blob == null) {
+                    rebuild();
+                }
+                current = blob;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Refresh a doctor's entry once the surrounding transaction commits (or drop it, if the doctor is gone).
+     * Until then, and while the update runs, the previous snapshot keeps being served.
+     */
+    public void doctorChanged(Long doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            changed.add(doctorId);
+            if (updateQueued.compareAndSet(false, true)) {
+                executor.execute(this::applyChanges);
+            }
+        });
+    }
+
+    // full rebuild, which also picks up doctors changed on other nodes
+    @Scheduled(fixedDelayString = "${doctor.directory.snapshot.refresh-ms:300000}")
+    public void refresh() {
+        if (blob != null) {
+            synchronized (this) {
+                rebuild();
+            }
+        }
+    }
+
+    private void applyChanges() {
+        updateQueued.set(false);
+        Set<Long> ids = new HashSet<>(changed);
+        changed.removeAll(ids);
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<DoctorDTO> fresh;
+        try {
+            fresh = doctorRepository.withAvailableTimes(doctorRepository.findDirectoryEntries(ids));
+        } catch (Exception e) {
+            // keep serving the previous snapshot; the next change or the periodic rebuild retries these
+            System.out.println("Doctor directory snapshot update failed: " + e.getMessage());
+            changed.addAll(ids);
+            return;
+        }
+        synchronized (this) {
+            if (blob == null) {
+                return; // never served yet; the first request builds from scratch
+            }
+            entries.keySet().removeAll(ids);
+            for (DoctorDTO dto : fresh) {
+                entries.put(dto.getId(), serialize(dto));
+            }
+            publish();
+        }
+    }
+
+    // builds into a new map and swaps it in only after the last page, so a failure part way keeps the previous entries
+    private void rebuild() {
+        buildTimer.record(() -> {
+            NavigableMap<Long, byte[]> rebuilt = new TreeMap<>();
+            long cursor = 0L;
+            List<DoctorDTO> page;
+            do {
+                page = doctorRepository.withAvailableTimes(doctorRepository.findDirectoryPage(cursor, PageRequest.of(0, PAGE_SIZE)));
+                for (DoctorDTO dto : page) {
+                    rebuilt.put(dto.getId(), serialize(dto));
+                    cursor = dto.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+            entries = rebuilt;
+            publish();
+        });
+    }
+
+    private void publish() {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write('[');
+        boolean first = true;
+        for (byte[] entry : entries.values()) {
+            if (!first) {
+                json.write(',');
+            }
+            json.writeBytes(entry);
+            first = false;
+        }
+        json.write(']');
+        byte[] bytes = json.toByteArray();
+        String hash = hash(bytes);
+        blob = new Blob(bytes, gzip(bytes), "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+    }
+
+    private byte[] serialize(DoctorDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.DoctorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes Doctor.availablePeriods for rows written before the column existed, so the
+ * AM/PM filters (which only look at the column) don't silently skip those doctors.
+ * New and updated doctors keep the column current themselves; this is a one-off on a fresh schema.
+ * <p>
+ * Works through the doctors in keyset pages of {@code doctor.periods.backfill.chunk-size} ids, one short
+ * transaction each: the page's slot labels are read as (id, label) rows, the masks are computed in Java
+ * and written with one set-based UPDATE per distinct mask. No entity is loaded or dirty-checked.
+ */
+@Component
+public class DoctorPeriodsBackfill {
+
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public DoctorPeriodsBackfill(DoctorRepository doctorRepository, PlatformTransactionManager transactionManager,
+                                 @Value("${doctor.periods.backfill.chunk-size:1000}") int chunkSize) {
+        this.doctorRepository = doctorRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long after = 0;
+        int total = 0;
+        List<Long> ids;
+        while (!(ids = doctorRepository.findIdsWithoutPeriods(after, PageRequest.of(0, chunkSize))).isEmpty()) {
+            List<Long> chunk = ids;
+            transactionTemplate.executeWithoutResult(status -> backfillChunk(chunk));
+            total += chunk.size();
+            after = chunk.get(chunk.size() - 1);
+        }
+        if (total > 0) {
+            System.out.println("Backfilled available periods for " + total + " doctors");
+        }
+    }
+
+    private void backfillChunk(List<Long> ids) {
+        Map<Long, List<Integer>> slots = new HashMap<>();
+        for (Object[] row : doctorRepository.findAvailableTimesByDoctorIds(ids)) {
+            slots.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(TimeSlot.parse((String) row[1]));
+        }
+        // a doctor without any available time gets the mask of an empty list
+        Map<Integer, List<Long>> idsByMask = new HashMap<>();
+        for (Long id : ids) {
+            int[] packed = slots.getOrDefault(id, List.of()).stream().mapToInt(Integer::intValue).toArray();
+            idsByMask.computeIfAbsent(TimeSlot.periodsOf(packed), mask -> new ArrayList<>()).add(id);
+        }
+        idsByMask.forEach(doctorRepository::updateAvailablePeriods);
+    }
+}
@@ -1,23 +1,35 @@
 package com.project.back_end.services;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.project.back_end.DTO.DoctorDTO;
 import com.project.back_end.DTO.Login;
-import com.project.back_end.models.Appointment;
+import com.project.back_end.config.CacheConfig;
+import com.project.back_end.config.MetricsConfig;
+import com.project.back_end.config.ReplicaLagMonitor;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorDeletionJob;
+import com.project.back_end.models.OutboxEvent;
+import com.project.back_end.models.TimeSlot;
 import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorDeletionJobRepository;
 import com.project.back_end.repo.DoctorRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @Service
 public class DoctorService {
 
@@ -33,11 +45,42 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
-
-    public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository, TokenService tokenService) {
+    private final AvailabilityIndex availabilityIndex;
+    private final NameSearchIndex nameSearchIndex;
+    private final Cache doctorById;
+    private final Cache doctorByEmail;
+    private final Cache doctorDirectory;
+    private final Outbox outbox;
+    private final DoctorDeletionJobRepository deletionJobRepository;
+    private final DoctorDirectorySnapshot directorySnapshot;
+
+    // With a read replica, read-only transactions can miss a committed change for up to the replica's stale window.
+    // A doctor changed (or the directory changed) within that window is read as usual but not cached, so the
+    // caches can't keep a stale DTO for their whole expireAfterWrite. Without a replica the window is zero.
+    private final Duration replicaWindow;
+    private final com.github.benmanes.caffeine.cache.Cache<Long, Boolean> recentlyChanged;
+    private volatile long directoryChangedAt;
+
+    static final int DIRECTORY_PAGE_SIZE = 500;
+
+    public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository, TokenService tokenService,
+                         AvailabilityIndex availabilityIndex, NameSearchIndex nameSearchIndex, CacheManager cacheManager,
+                         Outbox outbox, DoctorDeletionJobRepository deletionJobRepository,
+                         DoctorDirectorySnapshot directorySnapshot, ObjectProvider<ReplicaLagMonitor> replicaLagMonitor) {
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.availabilityIndex = availabilityIndex;
+        this.nameSearchIndex = nameSearchIndex;
+        this.doctorById = cacheManager.getCache(CacheConfig.DOCTOR_BY_ID);
+        this.doctorByEmail = cacheManager.getCache(CacheConfig.DOCTOR_BY_EMAIL);
+        this.doctorDirectory = cacheManager.getCache(CacheConfig.DOCTOR_DIRECTORY);
+        this.outbox = outbox;
+        this.deletionJobRepository = deletionJobRepository;
+        this.directorySnapshot = directorySnapshot;
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        this.replicaWindow = monitor != null ? monitor.staleWindow() : Duration.ZERO;
+        this.recentlyChanged = Caffeine.newBuilder().expireAfterWrite(replicaWindow).build();
 
     }
 // 3. **Add @Transactional Annotation for Methods that Modify or Fetch Database Data**:
@@ -49,38 +92,15 @@ public class DoctorService {
     //    - Retrieves the available time slots for a specific doctor on a particular date and filters out already booked slots.
     //    - The method fetches all appointments for the doctor on the given date and calculates the availability by comparing against booked slots.
     //    - Instruction: Ensure that the time slots are properly formatted and the available slots are correctly filtered.
-    @Transactional
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        List<String> availableTimeSlots = new ArrayList<>();
-
-        // Step 1: Fetch doctor by ID
-        Optional<Doctor> doctorOptional = doctorRepository.findById(doctorId);
-        if (doctorOptional.isEmpty()) {
-            return availableTimeSlots; // No doctor found, return empty list
-        }
-
-        Doctor doctor = doctorOptional.get();
-        List<String> doctorAvailableTimes = doctor.getAvailableTimes(); // Strings like "   09:00", "10:00", etc.
-
-        // Step 2: Fetch appointments for that doctor on the given date
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.atTime(23, 59, 59);
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
-
-        // Step 3: Extract booked time strings (formatted as "HH:mm")
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-        Set<String> bookedTimeSlots = appointments.stream()
-                .map(a -> a.getAppointmentTime().toLocalTime().format(formatter))
-                .collect(Collectors.toSet());
-
-        // Step 4: Filter out booked times from the doctor's available list
-        for (String timeSlot : doctorAvailableTimes) {
-            if (!bookedTimeSlots.contains(timeSlot)) {
-                availableTimeSlots.add(timeSlot);
-            }
-        }
+        // answered from the in-memory slot bitmaps; MySQL is only hit on a cold (doctor, date)
+        return availabilityIndex.getAvailability(doctorId, date);
+    }
 
-        return availableTimeSlots;
+    // Returns 1 if the doctor offers the packed slot (see TimeSlot) on that date and it is still free,
+    // 0 if it is taken, -2 if the doctor doesn't offer it, and -1 if the doctor doesn't exist.
+    public int checkSlotAvailability(Long doctorId, LocalDate date, int slot) {
+        return availabilityIndex.checkSlot(doctorId, date, slot);
     }
 
     // 5. **saveDoctor Method**:
@@ -95,6 +115,9 @@ public class DoctorService {
         }
         try {
             doctorRepository.save(doctor);
+            nameSearchIndex.putDoctor(doctor.getId(), doctor.getName());
+            evictCachedDoctor(doctor.getId(), doctor.getEmail());
+            directorySnapshot.doctorChanged(doctor.getId());
             return 1;
         } catch (Exception e) {
             System.out.println(e.getMessage());
@@ -116,6 +139,10 @@ public class DoctorService {
                     entity.setSpecialty(dto.getSpecialty());
                     entity.setPhone(dto.getPhone());
                     entity.setAvailableTimes(dto.getAvailableTimes());
+                    availabilityIndex.evictDoctor(entity.getId());
+                    nameSearchIndex.putDoctor(entity.getId(), entity.getName());
+                    evictCachedDoctor(entity.getId(), entity.getEmail());
+                    directorySnapshot.doctorChanged(entity.getId());
                     // JPA will auto-flush at commit
                     return 1;
                 })
@@ -126,17 +153,56 @@ public class DoctorService {
     // 7. **getDoctors Method**:
 //    - Fetches all doctors from the database. It is marked with `@Transactional` to ensure that the collection is properly loaded.
 //    - Instruction: Ensure that the collection is eagerly loaded, especially if dealing with lazy-loaded relationships (e.g., available times).
-    @Transactional
+    @Transactional(readOnly = true)
     public List<DoctorDTO> getDoctors() {
+        List<DoctorDTO> doctors = new ArrayList<>();
+        forEachDoctor(0L, doctors::add);
+        return doctors;
+    }
 
-        List<Doctor> doctors = doctorRepository.findAll();
-        return doctors.stream()
-                .map(obj -> mapToDoctorDTO(obj))
-                .toList();
+    // Walks the directory in keyset pages of DIRECTORY_PAGE_SIZE, starting after the given id.
+    // Each page is its own short query, so callers can stream the directory without holding it all in memory.
+    // Deliberately not transactional: a stream to a slow client must not pin a connection, so pages read from the primary.
+    public void forEachDoctor(long afterId, Consumer<DoctorDTO> action) {
+        long cursor = afterId;
+        List<DoctorDTO> page;
+        do {
+            page = getDoctorPage(cursor, DIRECTORY_PAGE_SIZE);
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == DIRECTORY_PAGE_SIZE);
+    }
+
+    // One keyset page: DTO projection for the doctors plus a single batched query for their available times.
+    // Pages are cached here rather than with @Cacheable because forEachDoctor calls this without going through the proxy.
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public List<DoctorDTO> getDoctorPage(long afterId, int limit) {
+        String key = afterId + ":" + limit;
+        List<DoctorDTO> cached = doctorDirectory.get(key, List.class);
+        if (cached != null) {
+            return cached;
+        }
+        boolean cacheable = System.currentTimeMillis() - directoryChangedAt >= replicaWindow.toMillis();
+        List<DoctorDTO> page = doctorRepository.withAvailableTimes(doctorRepository.findDirectoryPage(afterId, PageRequest.of(0, limit)));
+        List<DoctorDTO> result = List.copyOf(page);
+        if (cacheable) {
+            doctorDirectory.put(key, result);
+        }
+        return result;
     }
 
+    // Cached by id, so a hit skips loading the doctor's lazy availableTimes collection
     public DoctorDTO mapToDoctorDTO(Doctor doctor) {
-        return new DoctorDTO(
+        if (doctor.getId() != null) {
+            DoctorDTO cached = doctorById.get(doctor.getId(), DoctorDTO.class);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        DoctorDTO dto = new DoctorDTO(
                 doctor.getId(),
                 doctor.getName(),
                 doctor.getSpecialty(),
@@ -146,27 +212,102 @@ public class DoctorService {
                         ? new ArrayList<>(doctor.getAvailableTimes())  // force init
                         : new ArrayList<>()
         );
+        if (doctor.getId() != null && mayCache(doctor.getId())) {
+            doctorById.put(doctor.getId(), dto);
+        }
+        return dto;
+    }
+
+    private boolean mayCache(Long doctorId) {
+        return replicaWindow.isZero() || recentlyChanged.getIfPresent(doctorId) == null;
+    }
+
+    // Drop a doctor's cached DTOs and every directory page; the cache manager defers this to commit,
+    // and the replica window (see replicaWindow) starts there too
+    private void evictCachedDoctor(Long id, String email) {
+        // registered first, so the window is open before the evictions run
+        if (!replicaWindow.isZero()) {
+            TransactionHooks.afterCommit(() -> {
+                recentlyChanged.put(id, Boolean.TRUE);
+                directoryChangedAt = System.currentTimeMillis();
+            });
+        }
+        doctorById.evict(id);
+        if (email != null) {
+            doctorByEmail.evict(email);
+        }
+        doctorDirectory.clear();
     }
 
     // 8. **deleteDoctor Method**:
 //    - Deletes a doctor from the system along with all appointments associated with that doctor.
-//    - It first checks if the doctor exists. If not, it returns `-1`; otherwise, it deletes the doctor and their appointments.
+//    - It first checks if the doctor exists. If not, it returns `400`; otherwise, it starts a deletion job and returns `202` with its `jobId`.
+//    - The job removes the appointments and their prescriptions in chunks in the background (see `DoctorDeletionJobRunner`)
+//      and can be followed with `getDeletionJob`; deleting a doctor whose job is still running returns that job,
+//      and deleting one whose job FAILED starts a new one.
+//    - The doctor is flagged `deleting` right away, so it can no longer be booked while the job runs.
 //    - Instruction: Ensure the doctor and their appointments are deleted properly, with error handling for internal issues.
     @Transactional
-    public int deleteDoctor(long id) {
+    public ResponseEntity<Map<String, Object>> deleteDoctor(long id) {
+        Map<String, Object> resp = new HashMap<>();
         Optional<Doctor> doc = doctorRepository.findById(id);
 
         if (!doc.isPresent()) {
-            return -1;
+            resp.put("message", "doctor not found");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
         }
         try {
-            appointmentRepository.deleteAllByDoctorId(id);
-            doctorRepository.deleteById(id);
-
-            return 1;
+            // no new bookings from here on; the availability index treats the doctor as gone, the directory drops them
+            doc.get().setDeleting(true);
+            availabilityIndex.evictDoctor(id);
+            evictCachedDoctor(id, doc.get().getEmail());
+            directorySnapshot.doctorChanged(id);
+            DoctorDeletionJob job = deletionJobRepository.findFirstByDoctorIdAndStatusIn(id,
+                            List.of(DoctorDeletionJob.Status.PENDING, DoctorDeletionJob.Status.RUNNING))
+                    .orElseGet(() -> {
+                        DoctorDeletionJob created = deletionJobRepository.save(new DoctorDeletionJob(id, doc.get().getEmail()));
+                        Map<String, Object> payload = new HashMap<>();
+                        payload.put("jobId", created.getId());
+                        payload.put("email", doc.get().getEmail());
+                        outbox.record(OutboxEvent.Type.DOCTOR_DELETED, id, payload);
+                        return created;
+                    });
+            resp.put("message", "doctor deletion started");
+            resp.put("jobId", job.getId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(resp);
         } catch (Exception e) {
-            return 0;
+            System.out.println(e.getMessage());
+            resp.put("error", "there was an error deleting the doctor");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
+        }
+    }
+
+    // Progress of a deletion job: status, appointments and prescriptions deleted so far, and the last error if it is stuck.
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> getDeletionJob(long jobId) {
+        Map<String, Object> resp = new HashMap<>();
+        Optional<DoctorDeletionJob> job = deletionJobRepository.findById(jobId);
+        if (job.isEmpty()) {
+            resp.put("message", "No deletion job has been found.");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
         }
+        resp.put("job", job.get());
+        return ResponseEntity.ok(resp);
+    }
+
+    // Last step of a deletion job, once the runner has removed every appointment and its prescriptions:
+    // removes the doctor and drops them from the in-memory indexes and caches after commit.
+    // An appointment booked after the runner's last look fails the foreign key, and the job runs again.
+    @Transactional
+    public void removeDoctor(long id) {
+        doctorRepository.findById(id).ifPresent(doctor -> {
+            doctorRepository.delete(doctor);
+            availabilityIndex.evictDoctor(id);
+            nameSearchIndex.removeDoctor(id);
+            evictCachedDoctor(id, doctor.getEmail());
+            tokenService.invalidateUser(doctor.getEmail());
+            directorySnapshot.doctorChanged(id);
+        });
     }
 
     // 9. **validateDoctor Method**:
@@ -204,10 +345,10 @@ public class DoctorService {
 //    - Finds doctors based on partial name matching and returns the list of doctors with their available times.
 //    - This method is annotated with `@Transactional` to ensure that the database query and data retrieval are properly managed within a transaction.
 //    - Instruction: Ensure that available times are eagerly loaded for the doctors.
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> findDoctorByName(String name) {
         Map<String, Object> resp = new HashMap<>();
-        List<Doctor> docs = doctorRepository.findByNameLike(name);
+        List<Doctor> docs = findByName(name);
         if (!docs.isEmpty()) {
             List<DoctorDTO> dtos = docs.stream()
                     .map(obj -> mapToDoctorDTO(obj))
@@ -218,42 +359,58 @@ public class DoctorService {
         return resp;
     }
 
-    @Transactional
+    // Cached by email by hand rather than with @Cacheable, so a doctor inside the replica window is not cached
+    @Transactional(readOnly = true)
     public DoctorDTO findByEmail(String email) {
+        DoctorDTO cached = doctorByEmail.get(email, DoctorDTO.class);
+        if (cached != null) {
+            return cached;
+        }
         Doctor doc = doctorRepository.findByEmail(email);
         if (doc == null) {
             throw new EntityNotFoundException("No doctor found for " + email);
         }
-        return mapToDoctorDTO(doc);
+        DoctorDTO dto = mapToDoctorDTO(doc);
+        if (mayCache(doc.getId())) {
+            doctorByEmail.put(email, dto);
+        }
+        return dto;
     }
     // 11. **filterDoctorsByNameSpecilityandTime Method**:
 //    - Filters doctors based on their name, specialty, and availability during a specific time (AM/PM).
 //    - The method fetches doctors matching the name and specialty criteria, then filters them based on their availability during the specified time period.
 //    - Instruction: Ensure proper filtering based on both the name and specialty as well as the specified time period.
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorsByNameSpecialtyandTime(String name, String specialty, String amOrPm) {
         Map<String, Object> result = new HashMap<>();
         List<Doctor> doctors = new ArrayList<>();
 
+        boolean anyTime = "null".equals(amOrPm);
+        List<Integer> periods = TimeSlot.masksWithPeriod(amOrPm);
+
         if (name.equals("null") && specialty.equals("null")) {
-            doctors = doctorRepository.findAll();
-        }
-        if (!name.equals("null") && !specialty.equals("null")) {
-            doctors = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
+            if (anyTime) {
+                // no filter at all: serve the directory from the paged projection instead of findAll()
+                result.put("message", "Filtered doctors by name, specialty, and time of day");
+                result.put("doctors", getDoctors());
+                return result;
+            }
+            doctors = findByPeriods(periods);
+        } else if (!name.equals("null") && !specialty.equals("null")) {
+            doctors = anyTime
+                    ? findByNameAndSpecialty(name, specialty)
+                    : findByNameSpecialtyAndPeriods(name, specialty, periods);
         } else if (name.equals("null")) {
-            doctors = doctorRepository.findBySpecialtyIgnoreCase(specialty);
+            doctors = anyTime
+                    ? doctorRepository.findBySpecialtyIgnoreCase(specialty)
+                    : findBySpecialtyAndPeriods(specialty, periods);
         } else if (specialty.equals("null")) {
-            doctors = doctorRepository.findByNameLike(name);
+            doctors = anyTime
+                    ? findByName(name)
+                    : findByNameAndPeriods(name, periods);
         }
 
-        if (name.equals("null") && specialty.equals("null")) {
-            doctors = doctorRepository.findAll();
-        }
-        List<Doctor> filteredDoctors = "null".equals(amOrPm)
-                ? doctors
-                : filterDoctorsByTime(doctors, amOrPm);
-
-        List<DoctorDTO> dtos = filteredDoctors.stream()
+        List<DoctorDTO> dtos = doctors.stream()
                 .map(this::mapToDoctorDTO)
                 .toList();
 
@@ -262,19 +419,53 @@ public class DoctorService {
         return result;
     }
 
-    private List<Doctor> filterDoctorsByTime(List<Doctor> doctors, String amOrPm) {
-        List<Doctor> filtered = new ArrayList<>();
+    // The AM/PM filter is applied by the database through the indexed availablePeriods mask.
+    // An unrecognised period matches nothing, so there is no query to run.
+    private List<Doctor> findByPeriods(List<Integer> periods) {
+        return periods.isEmpty() ? List.of() : doctorRepository.findByAvailablePeriodsIn(periods);
+    }
 
-        for (Doctor doctor : doctors) {
-            for (String timeSlot : doctor.getAvailableTimes()) {
-                if (isTimeSlotInPeriod(timeSlot, amOrPm)) {
-                    filtered.add(doctor);
-                    break;
-                }
-            }
+    private List<Doctor> findBySpecialtyAndPeriods(String specialty, List<Integer> periods) {
+        return periods.isEmpty() ? List.of() : doctorRepository.findBySpecialtyIgnoreCaseAndAvailablePeriodsIn(specialty, periods);
+    }
+
+    private List<Doctor> findByNameAndPeriods(String name, List<Integer> periods) {
+        if (periods.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> ids = nameSearchIndex.searchDoctorNames(name);
+        if (ids == null) {
+            return doctorRepository.findByNameLikeAndAvailablePeriodsIn(name, periods);
         }
+        return doctorRepository.findByIdInAndAvailablePeriodsIn(ids, periods);
+    }
 
-        return filtered;
+    private List<Doctor> findByNameSpecialtyAndPeriods(String name, String specialty, List<Integer> periods) {
+        if (periods.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> ids = nameSearchIndex.searchDoctorNames(name);
+        if (ids == null) {
+            return doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCaseAndAvailablePeriodsIn(name, specialty, periods);
+        }
+        return doctorRepository.findByIdInAndSpecialtyIgnoreCaseAndAvailablePeriodsIn(ids, specialty, periods);
+    }
+
+    // Name searches use the ids from NameSearchIndex when it can answer, and the LIKE queries otherwise
+    private List<Doctor> findByName(String name) {
+        Set<Long> ids = nameSearchIndex.searchDoctorNames(name);
+        if (ids == null) {
+            return doctorRepository.findByNameLike(name);
+        }
+        return doctorRepository.findAllById(ids);
+    }
+
+    private List<Doctor> findByNameAndSpecialty(String name, String specialty) {
+        Set<Long> ids = nameSearchIndex.searchDoctorNames(name);
+        if (ids == null) {
+            return doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
+        }
+        return doctorRepository.findByIdInAndSpecialtyIgnoreCase(ids, specialty);
     }
 
 // 12. **filterDoctorByTime Method**:
@@ -286,21 +477,12 @@ public class DoctorService {
 //    - Filters doctors based on their name and the specified time period (AM/PM).
 //    - Fetches doctors based on partial name matching and filters the results to include only those available during the specified time period.
 //    - Instruction: Ensure that the method correctly filters doctors based on the given name and time of day (AM/PM).
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorByNameAndTime(String name, String amOrPm) {
         Map<String, Object> resp = new HashMap<>();
 
-        List<Doctor> docs = doctorRepository.findByNameLike(name);
-        List<Doctor> filteredDocs = new ArrayList<>();
-        for (Doctor doctor : docs) {
-            for (String timeslot : doctor.getAvailableTimes()) {
-                if (isTimeSlotInPeriod(timeslot, amOrPm)) {
-                    filteredDocs.add(doctor);
-                    break;
-
-                }
-            }
-        }
-        List<DoctorDTO> filteredDTOs = docs.stream()
+        List<Doctor> filteredDocs = findByNameAndPeriods(name, TimeSlot.masksWithPeriod(amOrPm));
+        List<DoctorDTO> filteredDTOs = filteredDocs.stream()
                 .map(obj -> mapToDoctorDTO(obj))
                 .toList();
 
@@ -308,26 +490,13 @@ public class DoctorService {
         return resp;
     }
 
-    // Utility method to check if a time slot is in AM or PM
-    private boolean isTimeSlotInPeriod(String timeSlot, String amOrPm) {
-        String startTime = timeSlot.split("-")[0];
-        int hour = Integer.parseInt(startTime.split(":")[0]);
-
-        if (amOrPm.equalsIgnoreCase("AM")) {
-            return hour < 12;
-        } else if (amOrPm.equalsIgnoreCase("PM")) {
-            return hour >= 12;
-        }
-        return false;
-    }
-
     // 14. **filterDoctorByNameAndSpecility Method**:
 //    - Filters doctors by name and specialty.
 //    - It ensures that the resulting list of doctors matches both the name (case-insensitive) and the specified specialty.
 //    - Instruction: Ensure that both name and specialty are considered when filtering doctors.
     public Map<String, Object> filterDoctorsByNameAndSpecialty(String name, String specialty) {
         Map<String, Object> resp = new HashMap<>();
-        List<Doctor> docs = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
+        List<Doctor> docs = findByNameAndSpecialty(name, specialty);
         List<DoctorDTO> dtos = docs.stream()
                 .map(obj -> mapToDoctorDTO(obj))
                 .toList();
@@ -339,19 +508,10 @@ public class DoctorService {
 //    - Filters doctors based on their specialty and availability during a specific time period (AM/PM).
 //    - Fetches doctors based on the specified specialty and filters them based on their available time slots for AM/PM.
 //    - Instruction: Ensure the time filtering is accurately applied based on the given specialty and time period (AM/PM).
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorByTimeAndSpecialty(String specialty, String amOrPm) {
         Map<String, Object> response = new HashMap<>();
-        List<Doctor> filteredDocs = new ArrayList<>();
-        List<Doctor> docs = doctorRepository.findBySpecialtyIgnoreCase(specialty);
-
-        for (Doctor doctor : docs) {
-            for (String timeSlot : doctor.getAvailableTimes()) {
-                if (isTimeSlotInPeriod(timeSlot, amOrPm)) {
-                    filteredDocs.add(doctor);
-                    break;
-                }
-            }
-        }
+        List<Doctor> filteredDocs = findBySpecialtyAndPeriods(specialty, TimeSlot.masksWithPeriod(amOrPm));
         List<DoctorDTO> dtos = filteredDocs
                 .stream()
                 .map(obj -> mapToDoctorDTO(obj))
@@ -380,18 +540,10 @@ public class DoctorService {
 //    - Filters all doctors based on their availability during a specific time period (AM/PM).
 //    - The method checks all doctors' available times and returns those available during the specified time period.
 //    - Instruction: Ensure proper filtering logic to handle AM/PM time periods.
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorsByTime(String amOrPm) {
-        List<Doctor> docs = doctorRepository.findAll();
-        List<Doctor> filteredDoctors = new ArrayList<>();
+        List<Doctor> filteredDoctors = findByPeriods(TimeSlot.masksWithPeriod(amOrPm));
         Map<String, Object> response = new HashMap<>();
-        for (Doctor doctor : docs) {
-            for (String timeSlot : doctor.getAvailableTimes()) {
-                if (isTimeSlotInPeriod(timeSlot, amOrPm)) {
-                    filteredDoctors.add(doctor);
-                    break;
-                }
-            }
-        }
         List<DoctorDTO> dtos = filteredDoctors
                 .stream()
                 .map(obj -> mapToDoctorDTO(obj))
@@ -0,0 +1,45 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.SchedulerLock;
+import com.project.back_end.repo.SchedulerLockRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * This node's lease on one scheduler_lock row, so a background job runs on one node at a time (see SchedulerLock).
+ */
+final class JobLease {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final String name;
+    private final Duration duration;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    JobLease(SchedulerLockRepository schedulerLockRepository, String name, Duration duration) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.name = name;
+        this.duration = duration;
+    }
+
+    // Take the lease, or renew it when this node already holds it; false while another node does.
+    boolean acquire() {
+        LocalDateTime now = LocalDateTime.now();
+        if (schedulerLockRepository.tryAcquire(name, owner, now, now.plus(duration)) == 1) {
+            return true;
+        }
+        if (!schedulerLockRepository.existsById(name)) {
+            try {
+                // first run against this database; if another node creates the row first, we just lose this round
+                schedulerLockRepository.saveAndFlush(new SchedulerLock(name));
+            } catch (DataIntegrityViolationException e) {
+                return false;
+            }
+            return schedulerLockRepository.tryAcquire(name, owner, now, now.plus(duration)) == 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,263 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * In-memory trigram index over doctor and patient names, used instead of the leading-wildcard
+ * {@code LIKE '%x%'} queries that MySQL can only answer with a full scan.
+ * <p>
+ * Every name is lower-cased and split into 3-character grams, each with a posting list of ids.
+ * A query is answered by walking the shortest posting list of its grams and confirming each
+ * candidate with {@code contains}, so results match the case-insensitive LIKE exactly.
+ * <p>
+ * The search methods return null when the index can't answer: queries shorter than
+ * {@link #MIN_QUERY_LENGTH}, more than {@link #MAX_MATCHES} hits (an IN list that large is worse
+ * than the scan), no hit at all, or before the first load. Callers then fall back to the LIKE query.
+ * A miss is not trusted because the name may have been written by another node since the last
+ * rebuild; the scan it costs is the price of never hiding a newly registered doctor or patient.
+ * For the same reason a hit is completed with the rows inserted since the rebuild before last
+ * (a primary key range scan), which covers inserts committed on other nodes in the meantime.
+ * The services keep the index current after each commit, and {@link #rebuild()} reloads it
+ * periodically to pick up writes made by other nodes. Changes committed while a rebuild is
+ * loading are replayed onto the new index after the swap, so the rebuild never loses them.
+ */
+@Component
+public class NameSearchIndex {
+
+    static final int MIN_QUERY_LENGTH = 3;
+    static final int MAX_MATCHES = 1000;
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+
+    private final LiveIndex doctors = new LiveIndex();
+    private final LiveIndex patients = new LiveIndex();
+
+    public NameSearchIndex(DoctorRepository doctorRepository, PatientRepository patientRepository) {
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * Ids of the doctors whose name contains the query (case-insensitive), or null to fall back to LIKE.
+     */
+    public Set<Long> searchDoctorNames(String query) {
+        return search(doctors, query, doctorRepository::findNamesByIdGreaterThan);
+    }
+
+    /**
+     * Ids of the patients whose name contains the query (case-insensitive), or null to fall back to LIKE.
+     */
+    public Set<Long> searchPatientNames(String query) {
+        return search(patients, query, patientRepository::findNamesByIdGreaterThan);
+    }
+
+    public void putDoctor(Long id, String name) {
+        TransactionHooks.afterCommit(() -> doctors.apply(id, name));
+    }
+
+    public void removeDoctor(Long id) {
+        TransactionHooks.afterCommit(() -> doctors.apply(id, null));
+    }
+
+    public void putPatient(Long id, String name) {
+        TransactionHooks.afterCommit(() -> patients.apply(id, name));
+    }
+
+    /**
+     * Build fresh indexes from the (id, name) rows of both tables and swap them in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${search.index.rebuild-interval-ms:300000}",
+            initialDelayString = "${search.index.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        doctors.rebuild(doctorRepository::findAllNames);
+        patients.rebuild(patientRepository::findAllNames);
+    }
+
+    private static Set<Long> search(LiveIndex live, String query, LongFunction<List<Object[]>> insertedAfter) {
+        TrigramIndex index = live.current;
+        if (index == null || query == null || query.length() < MIN_QUERY_LENGTH) {
+            return null;
+        }
+        String needle = query.toLowerCase(Locale.ROOT);
+        Set<Long> matches = index.search(needle, MAX_MATCHES);
+        if (matches == null || matches.isEmpty()) {
+            return null;
+        }
+        Set<Long> merged = new HashSet<>(matches);
+        for (Object[] row : insertedAfter.apply(live.watermark)) {
+            String name = (String) row[1];
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(needle)) {
+                merged.add((Long) row[0]);
+            }
+        }
+        return merged.size() > MAX_MATCHES ? null : merged;
+    }
+
+    // The index in use plus the changes committed while a rebuild is loading. A change is applied to the
+    // current index right away and also queued; after the swap the queue is replayed in commit order, so
+    // the new index ends up with every change whether or not the snapshot query already saw it.
+    private static final class LiveIndex {
+
+        // null until the first rebuild has finished
+        private volatile TrigramIndex current;
+        // rows above this id may be missing from current: the highest id of the snapshot before the current one
+        // (of the current one after the first rebuild), so an insert committed late with a lower id is still covered
+        private volatile long watermark;
+        // highest id in the current snapshot, -1 before the first rebuild
+        private long loadedMaxId = -1;
+        // non-null only while a rebuild is loading
+        private List<Change> pending;
+
+        // a null name removes the id
+        synchronized void apply(Long id, String name) {
+            if (current != null) {
+                current.apply(id, name);
+            }
+            if (pending != null) {
+                pending.add(new Change(id, name));
+            }
+        }
+
+        void rebuild(Supplier<List<Object[]>> rows) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            TrigramIndex fresh;
+            long freshMaxId = 0;
+            try {
+                List<Object[]> loaded = rows.get();
+                for (Object[] row : loaded) {
+                    freshMaxId = Math.max(freshMaxId, (Long) row[0]);
+                }
+                fresh = TrigramIndex.of(loaded);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (Change change : pending) {
+                    fresh.apply(change.id(), change.name());
+                }
+                pending = null;
+                watermark = loadedMaxId < 0 ? freshMaxId : loadedMaxId;
+                loadedMaxId = freshMaxId;
+                current = fresh;
+            }
+        }
+
+        private record Change(Long id, String name) {
+        }
+    }
+
+    private static final class TrigramIndex {
+
+        private final Map<Long, String> values = new HashMap<>();
+        private final Map<Long, Set<Long>> postings = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // rows are (Long id, String name) pairs
+        static TrigramIndex of(List<Object[]> rows) {
+            TrigramIndex index = new TrigramIndex();
+            for (Object[] row : rows) {
+                index.putLocked((Long) row[0], (String) row[1]);
+            }
+            return index;
+        }
+
+        // put the value for the id, or remove the id when the value is null
+        void apply(Long id, String value) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+                putLocked(id, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // matches for a lower-cased needle of at least 3 chars, or null when there are more than limit
+        Set<Long> search(String needle, int limit) {
+            lock.readLock().lock();
+            try {
+                Set<Long> shortest = null;
+                for (long gram : trigrams(needle)) {
+                    Set<Long> ids = postings.get(gram);
+                    if (ids == null) {
+                        return Set.of();
+                    }
+                    if (shortest == null || ids.size() < shortest.size()) {
+                        shortest = ids;
+                    }
+                }
+                Set<Long> matches = new HashSet<>();
+                for (Long id : shortest) {
+                    // sharing every gram doesn't make it a substring, so confirm
+                    if (values.get(id).contains(needle)) {
+                        matches.add(id);
+                        if (matches.size() > limit) {
+                            return null;
+                        }
+                    }
+                }
+                return matches;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void putLocked(Long id, String value) {
+            if (id == null || value == null) {
+                return;
+            }
+            String normalized = value.toLowerCase(Locale.ROOT);
+            values.put(id, normalized);
+            for (long gram : trigrams(normalized)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        }
+
+        private void removeLocked(Long id) {
+            String old = values.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (long gram : trigrams(old)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        // three UTF-16 chars packed into one long
+        private static long[] trigrams(String value) {
+            int count = Math.max(0, value.length() - 2);
+            long[] grams = new long[count];
+            for (int i = 0; i < count; i++) {
+                grams[i] = ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+            }
+            return grams;
+        }
+    }
+}
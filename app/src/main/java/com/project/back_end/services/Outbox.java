@@ -0,0 +1,57 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.OutboxEvent;
+import com.project.back_end.repo.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Records outbox events as part of the caller's transaction and hands them to the dispatcher once it commits.
+ */
+@Component
+public class Outbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(OutboxEventRepository outboxEventRepository, OutboxDispatcher dispatcher, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Store an event in the current transaction; it only exists, and is only dispatched, if that transaction commits.
+     * The payload must serialize to a JSON object (dates become ISO strings, see {@link #time}).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.Type type, Long aggregateId, Map<String, Object> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox payload is not serializable", e);
+        }
+        OutboxEvent event = outboxEventRepository.save(new OutboxEvent(type, aggregateId, json));
+        TransactionHooks.afterCommit(() -> dispatcher.enqueue(event));
+    }
+
+    // Read back a payload id; JSON numbers come back as Integer or Long.
+    static Long id(Map<String, Object> payload, String key) {
+        Object value = payload.get(key);
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    // Read back a payload LocalDateTime.
+    static LocalDateTime time(Map<String, Object> payload, String key) {
+        Object value = payload.get(key);
+        return value == null ? null : LocalDateTime.parse(value.toString());
+    }
+}
@@ -0,0 +1,196 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.OutboxEvent;
+import com.project.back_end.repo.OutboxEventRepository;
+import com.project.back_end.repo.SchedulerLockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed outbox events out to the {@link OutboxHandler}s on a few worker threads, off the request thread.
+ * <p>
+ * Events reach the bounded queue two ways: right after their transaction commits on this node, and from the
+ * relay, which re-reads rows left unpublished (a node died before dispatching, the queue was full, or a handler
+ * failed). The queue never blocks a producer: when it is full the event simply stays in the table, and the relay
+ * only fetches as many rows as the queue has room for, so a backlog waits in MySQL rather than in memory.
+ * The relay runs on one node at a time (lease "outbox-relay") and also purges published rows past retention.
+ * <p>
+ * Metrics: {@code outbox.queue.size}, and {@code outbox.events} tagged {@code result} = published, failed or
+ * deferred (queue full).
+ */
+@Component
+public class OutboxDispatcher implements SmartLifecycle {
+
+    static final String LOCK_NAME = "outbox-relay";
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {
+    };
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectProvider<OutboxHandler> handlers;
+    private final ObjectMapper objectMapper;
+    private final JobLease lease;
+    private final BlockingQueue<OutboxEvent> queue;
+    // ids queued or being handled here, so the relay doesn't queue them a second time
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Counter published;
+    private final Counter failed;
+    private final Counter deferred;
+
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration relayDelay;
+    private final Duration retention;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ObjectProvider<OutboxHandler> handlers,
+                            ObjectMapper objectMapper,
+                            SchedulerLockRepository schedulerLockRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.queue-capacity:10000}") int queueCapacity,
+                            @Value("${outbox.workers:2}") int workers,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.relay-delay-seconds:30}") long relayDelaySeconds,
+                            @Value("${outbox.retention-days:7}") long retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.objectMapper = objectMapper;
+        this.lease = new JobLease(schedulerLockRepository, LOCK_NAME, Duration.ofMinutes(2));
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.published = meterRegistry.counter("outbox.events", "result", "published");
+        this.failed = meterRegistry.counter("outbox.events", "result", "failed");
+        this.deferred = meterRegistry.counter("outbox.events", "result", "deferred");
+        Gauge.builder("outbox.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.relayDelay = Duration.ofSeconds(relayDelaySeconds);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Queue a just-committed event; when the queue is full it is left for the relay.
+     */
+    void enqueue(OutboxEvent event) {
+        if (!offer(event)) {
+            deferred.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:5000}")
+    public void relay() {
+        if (!running || !lease.acquire()) {
+            return;
+        }
+        int room = queue.remainingCapacity();
+        if (room > 0) {
+            // rows younger than the relay delay are normally still on their way through the writer's queue
+            LocalDateTime before = LocalDateTime.now().minus(relayDelay);
+            for (OutboxEvent event : outboxEventRepository.findPending(before, maxAttempts, PageRequest.of(0, Math.min(room, 500)))) {
+                if (!offer(event)) {
+                    break;
+                }
+            }
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        while (outboxEventRepository.deletePublishedBefore(cutoff, 1000) == 1000 && lease.acquire()) {
+            // next chunk
+        }
+    }
+
+    private boolean offer(OutboxEvent event) {
+        if (!inFlight.add(event.getId())) {
+            return true;
+        }
+        if (queue.offer(event)) {
+            return true;
+        }
+        inFlight.remove(event.getId());
+        return false;
+    }
+
+    private void work() {
+        while (running) {
+            OutboxEvent event;
+            try {
+                event = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event != null) {
+                try {
+                    dispatch(event);
+                } finally {
+                    inFlight.remove(event.getId());
+                }
+            }
+        }
+    }
+
+    private void dispatch(OutboxEvent event) {
+        try {
+            Map<String, Object> payload = objectMapper.readValue(event.getPayload(), PAYLOAD);
+            for (OutboxHandler handler : handlers) {
+                if (handler.supports(event.getType())) {
+                    handler.handle(event, payload);
+                }
+            }
+            outboxEventRepository.markPublished(event.getId(), LocalDateTime.now());
+            published.increment();
+        } catch (Exception e) {
+            System.out.println("Outbox event " + event.getId() + " (" + event.getType() + ") failed: " + e.getMessage());
+            failed.increment();
+            try {
+                outboxEventRepository.recordFailure(event.getId());
+            } catch (Exception ignored) {
+                // still unpublished, so the relay retries it anyway
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::work, "outbox-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @Override
+    public void stop() {
+        // queued events are still unpublished in the table; the relay picks them up after a restart
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.OutboxEvent;
+
+import java.util.Map;
+
+/**
+ * A consumer of outbox events. OutboxDispatcher calls every handler that supports an event's type, on one of
+ * its worker threads, after the change that recorded it has committed.
+ * <p>
+ * Delivery is at least once: when any handler throws, the whole event is retried later, so handlers must be
+ * idempotent. Events may be handled out of order.
+ */
+public interface OutboxHandler {
+
+    boolean supports(OutboxEvent.Type type);
+
+    void handle(OutboxEvent event, Map<String, Object> payload);
+}
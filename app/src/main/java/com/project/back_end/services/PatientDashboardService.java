@@ -0,0 +1,110 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.DTO.PrescriptionDTO;
+import com.project.back_end.config.MetricsConfig;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.PatientRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Everything the patient dashboard needs in one response: the patient, their appointments from MySQL
+ * and the prescriptions of those appointments from Mongo.
+ * <p>
+ * The patient lookup and the appointments (followed by one {@code $in} query for their prescriptions)
+ * run concurrently on the application task executor, virtual threads when that mode is on. Subtasks are
+ * scoped to the request: they share one deadline and whatever is still running when one fails or the
+ * deadline passes is cancelled before the method returns.
+ */
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+@Service
+public class PatientDashboardService {
+
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PrescriptionService prescriptionService;
+    private final AsyncTaskExecutor executor;
+    private final long timeoutMs;
+
+    public PatientDashboardService(PatientRepository patientRepository, AppointmentRepository appointmentRepository,
+                                   PrescriptionService prescriptionService,
+                                   @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                   @Value("${patient.dashboard.timeout-ms:5000}") long timeoutMs) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionService = prescriptionService;
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public ResponseEntity<Map<String, Object>> getDashboard(AuthPrincipal principal) {
+        Map<String, Object> resp = new HashMap<>();
+        if (!principal.hasRole("patient") || principal.getId() == null) {
+            resp.put("error", "unauthorized");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(resp);
+        }
+        Long patientId = principal.getId();
+
+        Future<Patient> patient = executor.submit(() -> patientRepository.findById(patientId).orElse(null));
+        Future<AppointmentsWithPrescriptions> appointments = executor.submit(() -> {
+            List<AppointmentDTO> dtos = appointmentRepository.findByPatientId(patientId);
+            List<Long> ids = dtos.stream().map(AppointmentDTO::getId).toList();
+            return new AppointmentsWithPrescriptions(dtos, prescriptionService.getPrescriptionsByAppointmentIds(ids));
+        });
+
+        try {
+            joinAll(List.of(patient, appointments));
+            resp.put("patient", patient.get());
+            resp.put("appointments", appointments.get().appointments());
+            resp.put("prescriptions", appointments.get().prescriptions());
+            return ResponseEntity.ok(resp);
+        } catch (TimeoutException e) {
+            resp.put("error", "dashboard timed out");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(resp);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resp.put("error", "dashboard interrupted");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(resp);
+        } catch (ExecutionException e) {
+            System.out.println("Patient dashboard failed: " + e.getCause());
+            resp.put("error", "there was an error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
+        }
+    }
+
+    // Waits for every subtask within one deadline. Leaving early (a failure, the timeout, an interrupt)
+    // cancels the rest, so no subtask outlives the request: StructuredTaskScope.ShutdownOnFailure
+    // without the JDK 21 preview API.
+    private void joinAll(List<Future<?>> tasks) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            for (Future<?> task : tasks) {
+                task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private record AppointmentsWithPrescriptions(List<AppointmentDTO> appointments,
+                                                 Map<Long, List<PrescriptionDTO>> prescriptions) {
+    }
+}
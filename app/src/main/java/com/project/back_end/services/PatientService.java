@@ -1,18 +1,24 @@
 package com.project.back_end.services;
 
 import com.project.back_end.DTO.AppointmentDTO;
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.PatientRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @Service
 public class PatientService {
 // 1. **Add @Service Annotation**:
@@ -26,12 +32,13 @@ public class PatientService {
 //    - Instruction: Ensure constructor injection is used for all the required dependencies.
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
-    private final TokenService tokenService;
+    private final NameSearchIndex nameSearchIndex;
 
-    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository, TokenService tokenService) {
+    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository,
+                          NameSearchIndex nameSearchIndex) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
-        this.tokenService = tokenService;
+        this.nameSearchIndex = nameSearchIndex;
     }
 
     // 3. **createPatient Method**:
@@ -41,6 +48,7 @@ public class PatientService {
     public int createPatient(Patient patient) {
         try {
             patientRepository.save(patient);
+            nameSearchIndex.putPatient(patient.getId(), patient.getName());
             return 1;
         } catch (Exception e) {
             System.out.println(e.getMessage());
@@ -50,19 +58,14 @@ public class PatientService {
 
     // 4. **getPatientAppointment Method**:
 //    - Retrieves a list of appointments for a specific patient, based on their ID.
-//    - The appointments are then converted into `AppointmentDTO` objects for easier consumption by the API client.
-//    - This method is marked as `@Transactional` to ensure database consistency during the transaction.
+//    - The appointments are read directly as `AppointmentDTO` projections for easier consumption by the API client.
+//    - This method is marked as read-only `@Transactional`: Hibernate skips the flush and the driver may route the reads to a read-only connection.
 //    - Instruction: Ensure that appointment data is properly converted into DTOs and the method handles errors gracefully.
-    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, String token) {//response map
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, AuthPrincipal principal) {//response map
         Map<String, Object> response = new HashMap<>();
-        String email = tokenService.extractEmail(token);
-        Patient patient = patientRepository.findByEmail(email);
-        if (id == patient.getId()) {
-            List<Appointment> appts = appointmentRepository.findByPatientId(patient.getId());
-            List<AppointmentDTO> dtos = appts
-                    .stream()
-                    .map(AppointmentDTO::new)
-                    .toList();
+        if (principal.hasRole("patient") && Objects.equals(id, principal.getId())) {
+            List<AppointmentDTO> dtos = appointmentRepository.findByPatientId(principal.getId());
             response.put("appointments", dtos);
             return ResponseEntity.ok(response);
         } else {
@@ -76,6 +79,7 @@ public class PatientService {
 //    - Retrieves appointments with a specific status (0 for future, 1 for past) for the patient.
 //    - Converts the appointments into `AppointmentDTO` and returns them in the response.
 //    - Instruction: Ensure the method correctly handles "past" and "future" conditions, and that invalid conditions are caught and returned as errors.
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> filterByCondition(String condition, Long id) {
         Map<String, Object> response = new HashMap<>();
         int status;
@@ -87,11 +91,7 @@ public class PatientService {
             response.put("error", "please enter a valid condition");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        List<Appointment> appts = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, status);
-        List<AppointmentDTO> dtos = appts
-                .stream()
-                .map(AppointmentDTO::new)
-                .toList();
+        List<AppointmentDTO> dtos = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, status);
         response.put("appointments", dtos);
         return ResponseEntity.ok(response);
     }
@@ -99,13 +99,13 @@ public class PatientService {
 //    - Filters appointments for a patient based on the doctor's name.
 //    - It retrieves appointments where the doctor’s name matches the given value, and the patient ID matches the provided ID.
 //    - Instruction: Ensure that the method correctly filters by doctor's name and patient ID and handles any errors or invalid cases.
+        @Transactional(readOnly = true)
         public ResponseEntity<Map<String, Object>> filterByDoctor(String name, Long patientId) {
             Map<String, Object> response = new HashMap<>();
-            List<Appointment> appts = appointmentRepository.filterByDoctorNameAndPatientId(name, patientId);
-            List<AppointmentDTO> dtos = appts
-                    .stream()
-                    .map(AppointmentDTO::new)
-                    .toList();
+            Set<Long> doctorIds = nameSearchIndex.searchDoctorNames(name);
+            List<AppointmentDTO> dtos = doctorIds == null
+                    ? appointmentRepository.filterByDoctorNameAndPatientId(name, patientId)
+                    : appointmentRepository.filterByDoctorIdInAndPatientId(doctorIds, patientId);
             response.put("appointments", dtos);
             return ResponseEntity.ok(response);
         }
@@ -114,6 +114,7 @@ public class PatientService {
 //    - This method combines filtering by doctor name and appointment status (past or future).
 //    - Converts the appointments into `AppointmentDTO` objects and returns them in the response.
 //    - Instruction: Ensure that the filter handles both doctor name and condition properly, and catches errors for invalid input.
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> filterByDoctorAndCondition(String condition, String name, Long patientId) {
         Map<String, Object> response = new HashMap<>();
         int status;
@@ -125,11 +126,10 @@ public class PatientService {
             response.put("error", "please enter a valid condition");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        List<Appointment> appts = appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, status);
-        List<AppointmentDTO> dtos = appts
-                .stream()
-                .map(AppointmentDTO::new)
-                .toList();
+        Set<Long> doctorIds = nameSearchIndex.searchDoctorNames(name);
+        List<AppointmentDTO> dtos = doctorIds == null
+                ? appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, status)
+                : appointmentRepository.filterByDoctorIdInAndPatientIdAndStatus(doctorIds, patientId, status);
         response.put("appointments", dtos);
         return ResponseEntity.ok(response);
     }
@@ -138,11 +138,12 @@ public class PatientService {
 //    - Once the email is extracted, it fetches the corresponding patient from the `patientRepository`.
 //    - It returns the patient's information in the response body.
     //    - Instruction: Make sure that the token extraction process works correctly and patient details are fetched properly based on the extracted email.
-    public ResponseEntity<Map<String, Object>> getPatientDetails(String token) {
+    public ResponseEntity<Map<String, Object>> getPatientDetails(AuthPrincipal principal) {
         Map<String, Object> resp = new HashMap<>();
         try {
-            String email = tokenService.extractEmail(token);
-            Patient patient = patientRepository.findByEmail(email);
+            Patient patient = principal.hasRole("patient")
+                    ? patientRepository.findById(principal.getId()).orElse(null)
+                    : null;
             resp.put("patient", patient);
             return ResponseEntity.ok(resp);
         } catch (Exception e) {
@@ -150,6 +151,16 @@ public class PatientService {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
         }
     }
+    // ETags of the patient's GET endpoints, read from version columns only (see AppointmentRepository.etag).
+    @Transactional(readOnly = true)
+    public String appointmentsEtag(Long patientId) {
+        return AppointmentRepository.etag(appointmentRepository.findVersionsByPatientId(patientId));
+    }
+
+    public String detailsEtag(Long patientId) {
+        Long version = patientRepository.findVersionById(patientId);
+        return version == null ? null : "\"" + patientId + "." + version + "\"";
+    }
 // 9. **Handling Exceptions and Errors**:
 //    - The service methods handle exceptions using try-catch blocks and log any issues that occur. If an error occurs during database operations, the service responds with appropriate HTTP status codes (e.g., `500 Internal Server Error`).
 //    - Instruction: Ensure that error handling is consistent across the service, with proper logging and meaningful error messages returned to the client.
@@ -1,16 +1,25 @@
 package com.project.back_end.services;
 
 import com.project.back_end.DTO.PrescriptionDTO;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.repo.PrescriptionRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @Service
 public class PrescriptionService {
     
@@ -24,9 +33,16 @@ public class PrescriptionService {
 //    - It is injected through the constructor, ensuring proper dependency management and enabling testing.
 //    - Instruction: Constructor injection is a good practice, ensuring that all necessary dependencies are available at the time of service initialization.
         private final PrescriptionRepository prescriptionRepository;
+        private final MeterRegistry meterRegistry;
 
-        public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+        public PrescriptionService(PrescriptionRepository prescriptionRepository, MeterRegistry meterRegistry) {
             this.prescriptionRepository = prescriptionRepository;
+            this.meterRegistry = meterRegistry;
+        }
+
+        // every round trip to MongoDB, by operation and whether it threw
+        private void countMongoCall(String operation, String outcome) {
+            meterRegistry.counter("prescriptions.mongo.calls", "operation", operation, "outcome", outcome).increment();
         }
 // 3. **savePrescription Method**:
 //    - This method saves a new prescription to the database.
@@ -39,6 +55,7 @@ public class PrescriptionService {
         try {
             if (prescription != null) {
                 prescriptionRepository.save(prescription);
+                countMongoCall("save", "success");
                 resp.put("prescription", "prescription has been saved.");
                 return ResponseEntity.status(HttpStatus.CREATED).body(resp);
             } else {
@@ -46,6 +63,7 @@ public class PrescriptionService {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
             }
         } catch (Exception e) {
+            countMongoCall("save", "error");
             resp.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
         }
@@ -60,6 +78,7 @@ public class PrescriptionService {
 
             try {
                 List<Prescription> prescriptions = prescriptionRepository.findByAppointmentId(appointmentId);
+                countMongoCall("findByAppointmentId", "success");
                 List<PrescriptionDTO> pDtos = prescriptions
                         .stream()
                         .map(PrescriptionDTO::new)
@@ -67,11 +86,69 @@ public class PrescriptionService {
                 resp.put("pDtos", pDtos);
                 return ResponseEntity.ok(resp);
             } catch (Exception e) {
+                countMongoCall("findByAppointmentId", "error");
                 resp.put("error", "there was an error");
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
 
             }
         }
+        // Prescriptions of many appointments in a single $in query, grouped by appointment id.
+        // Exceptions propagate so an aggregating caller can fail as a whole.
+        public Map<Long, List<PrescriptionDTO>> getPrescriptionsByAppointmentIds(Collection<Long> appointmentIds) {
+            if (appointmentIds.isEmpty()) {
+                return Map.of();
+            }
+            try {
+                List<Prescription> prescriptions = prescriptionRepository.findByAppointmentIdIn(appointmentIds);
+                countMongoCall("findByAppointmentIdIn", "success");
+                return prescriptions.stream()
+                        .map(PrescriptionDTO::new)
+                        .collect(Collectors.groupingBy(PrescriptionDTO::getAppointmentId));
+            } catch (RuntimeException e) {
+                countMongoCall("findByAppointmentIdIn", "error");
+                throw e;
+            }
+        }
+        // Prescriptions of many appointments from a single cursor, handed to the consumer one appointment at a time
+        // in appointment id order. Only the current group is held in memory.
+        public void forEachPrescriptionGroup(Collection<Long> appointmentIds, BiConsumer<Long, List<PrescriptionDTO>> action) {
+            if (appointmentIds.isEmpty()) {
+                return;
+            }
+            try (Stream<Prescription> prescriptions = prescriptionRepository.streamByAppointmentIdInOrderByAppointmentIdAscIdAsc(appointmentIds)) {
+                Long current = null;
+                List<PrescriptionDTO> group = new ArrayList<>();
+                for (Prescription prescription : (Iterable<Prescription>) prescriptions::iterator) {
+                    if (current != null && !current.equals(prescription.getAppointmentId())) {
+                        action.accept(current, group);
+                        group = new ArrayList<>();
+                    }
+                    current = prescription.getAppointmentId();
+                    group.add(new PrescriptionDTO(prescription));
+                }
+                if (current != null) {
+                    action.accept(current, group);
+                }
+                countMongoCall("streamByAppointmentIdIn", "success");
+            } catch (RuntimeException e) {
+                countMongoCall("streamByAppointmentIdIn", "error");
+                throw e;
+            }
+        }
+        // Delete the prescriptions of many appointments in one round trip; used when a doctor's history is removed.
+        public long deletePrescriptionsByAppointmentIds(Collection<Long> appointmentIds) {
+            if (appointmentIds.isEmpty()) {
+                return 0;
+            }
+            try {
+                long deleted = prescriptionRepository.deleteByAppointmentIdIn(appointmentIds);
+                countMongoCall("deleteByAppointmentIdIn", "success");
+                return deleted;
+            } catch (RuntimeException e) {
+                countMongoCall("deleteByAppointmentIdIn", "error");
+                throw e;
+            }
+        }
 // 5. **Exception Handling and Error Responses**:
 //    - Both methods (`savePrescription` and `getPrescription`) contain try-catch blocks to handle exceptions that may occur during database interaction.
 //    - If an error occurs, the method logs the error and returns an HTTP `500 Internal Server Error` response with a corresponding error message.
@@ -0,0 +1,77 @@
+package com.project.back_end.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks keyed by (doctor, date), serializing the check-then-insert of a booking in this JVM.
+ * <p>
+ * A fixed array of locks is shared by all keys, so memory stays constant and two bookings only
+ * wait for each other when they hash to the same stripe (same doctor and day, or a rare collision).
+ * Other nodes are not covered; the unique (doctor_id, appointment_time) constraint catches those.
+ */
+@Component
+public class SlotLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public SlotLocks(@Value("${booking.lock.stripes:1024}") int stripes) {
+        this.stripes = new ReentrantLock[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run the action while holding the stripe for this doctor and date.
+     */
+    public <T> T withLock(long doctorId, LocalDate date, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeFor(doctorId, date)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run the action while holding the stripes of every (doctor, date) key, e.g. for a batch booking.
+     * Stripes are always taken in ascending order, so two batches can't deadlock on each other.
+     */
+    public <T> T withLocks(Collection<Key> keys, Supplier<T> action) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Key key : keys) {
+            indexes.add(stripeFor(key.doctorId(), key.date()));
+        }
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                held.add(stripes[index]);
+            }
+            return action.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    private int stripeFor(long doctorId, LocalDate date) {
+        int hash = 31 * Long.hashCode(doctorId) + date.hashCode();
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, stripes.length);
+    }
+
+    public record Key(long doctorId, LocalDate date) {
+    }
+}
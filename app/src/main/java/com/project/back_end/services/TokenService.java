@@ -1,12 +1,21 @@
 package com.project.back_end.services;
 
+import com.project.back_end.DTO.AuthPrincipal;
+import com.project.back_end.config.MetricsConfig;
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -14,25 +23,42 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @Component
 public class TokenService {
     private final AdminRepository adminRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final MeterRegistry meterRegistry;
 
     @Value("${jwt.secret}")
     private String secretKey;
 
+    private SecretKey signingKey;
+
     public TokenService(AdminRepository adminRepository,
                         DoctorRepository doctorRepository,
-                        PatientRepository patientRepository) {
+                        PatientRepository patientRepository,
+                        VerifiedTokenCache verifiedTokenCache,
+                        MeterRegistry meterRegistry) {
         this.adminRepository = adminRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Build the HMAC key once; it only depends on the configured secret.
+     */
+    @PostConstruct
+    void initSigningKey() {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
     }
 
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+        return signingKey;
     }
 
     /**
@@ -66,6 +92,10 @@ public class TokenService {
      * Extract the email (subject) claim.
      */
     public String extractEmail(String token) {
+        AuthPrincipal cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached.getEmail();
+        }
         return parseClaims(token).getSubject();
     }
 
@@ -73,6 +103,10 @@ public class TokenService {
      * Extract the custom 'role' claim.
      */
     public String extractRole(String token) {
+        AuthPrincipal cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached.getRole();
+        }
         return parseClaims(token).get("role", String.class);
     }
 
@@ -81,23 +115,73 @@ public class TokenService {
      * to an existing user in the right repository.
      */
     public boolean authenticateUserFromToken(String token) {
+        return resolvePrincipal(token) != null;
+    }
+
+    /**
+     * Verify the token and load the id of the user it belongs to, in one pass.
+     * Returns null for invalid, expired or tampered tokens and for users that no longer exist.
+     * Successful resolutions are cached per token until the JWT expires or the cache TTL elapses.
+     */
+    public AuthPrincipal resolvePrincipal(String token) {
+        if (token == null) {
+            return null;
+        }
+        AuthPrincipal cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims;
+        try {
+            claims = parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // invalid, expired, or tampered token; tagged with the jjwt exception type (ExpiredJwtException, ...)
+            meterRegistry.counter("jwt.parse.failures", "exception", e.getClass().getSimpleName()).increment();
+            return null;
+        }
         try {
-            Claims claims = parseClaims(token);
             String email = claims.getSubject();
             String role  = claims.get("role", String.class);
+            if (email == null || role == null) {
+                return null;
+            }
 
+            Long id = null;
             switch (role.toLowerCase()) {
                 case "doctor":
-                    return doctorRepository.findByEmail(email) != null;
+                    Doctor doctor = doctorRepository.findByEmail(email);
+                    id = doctor != null ? doctor.getId() : null;
+                    break;
                 case "patient":
-                    return patientRepository.findByEmail(email) != null;
+                    Patient patient = patientRepository.findByEmail(email);
+                    id = patient != null ? patient.getId() : null;
+                    break;
                 case "admin":
-                    return adminRepository.findByUsername(email) != null;
+                    Admin admin = adminRepository.findByUsername(email);
+                    id = admin != null ? admin.getId() : null;
+                    break;
                 default:
-                    return false;
+                    break;
             }
-        } catch (Exception e) {
-            return false; // invalid, expired, or tampered token
+            if (id == null) {
+                return null;
+            }
+            AuthPrincipal principal = new AuthPrincipal(email, role, id);
+            // a token without an exp claim is valid, but only cached for the cache TTL
+            Date expiration = claims.getExpiration();
+            verifiedTokenCache.put(token, principal, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+            return principal;
+        } catch (JwtException e) {
+            // a role claim that is not a string
+            meterRegistry.counter("jwt.parse.failures", "exception", e.getClass().getSimpleName()).increment();
+            return null;
         }
     }
+
+    /**
+     * Drop cached verifications for a user that no longer exists.
+     */
+    public void invalidateUser(String email) {
+        verifiedTokenCache.invalidateUser(email);
+    }
 }
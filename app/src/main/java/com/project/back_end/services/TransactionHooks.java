@@ -0,0 +1,28 @@
+package com.project.back_end.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for keeping in-memory indexes in step with the database.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    // Run the action once the surrounding transaction commits, or right away when there is none.
+    // A rolled back transaction never touches the index.
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
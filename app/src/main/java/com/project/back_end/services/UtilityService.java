@@ -1,27 +1,26 @@
 package com.project.back_end.services;
 
-import com.project.back_end.DTO.DoctorDTO;
+import com.project.back_end.DTO.AuthPrincipal;
 import com.project.back_end.DTO.Login;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
+import com.project.back_end.models.TimeSlot;
 import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @Service
 public class UtilityService {
 // 1. **@Service Annotation**
@@ -48,20 +47,6 @@ public class UtilityService {
         this.patientService = patientService;
     }
 
-    // 3. **validateToken Method**
-// This method checks if the provided JWT token is valid for a specific user. It uses the TokenService to perform the validation.
-// If the token is invalid or expired, it returns a 401 Unauthorized response with an appropriate error message. This ensures security by preventing
-// unauthorized access to protected resources.
-    public Map<String, String> getTokenValidationResponse(String token) {
-        Map<String, String> resp = new HashMap<>();
-
-        if (tokenService.authenticateUserFromToken(token)) {
-            resp.put("token", "valid token");
-            return resp;
-        }
-        return resp;
-    }
-
     // 4. **validateAdmin Method**
 // This method validates the login credentials for an admin user.
 // - It first searches the admin repository using the provided username.
@@ -97,19 +82,14 @@ public class UtilityService {
 // - It supports various combinations of the three filters.
 // - If none of the filters are provided, it returns all available doctors.
 // This flexible filtering mechanism allows the frontend or consumers of the API to search and narrow down doctors based on user criteria.
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctor(String name, String specialty, String amOrPm) {
         Map<String, Object> resp = new HashMap<>();
 
         //if no filters are provided
         //return all docs
         if (name.equals("null") && specialty.equals("null") && amOrPm.equals("null")) {
-            List<Doctor> docs = doctorRepository.findAll();
-            List<DoctorDTO> dtos = docs
-                    .stream()
-                    .map(obj -> doctorService.mapToDoctorDTO(obj))
-                    .toList();
-            resp.put("doctors", dtos);
+            resp.put("doctors", doctorService.getDoctors());
             return resp;
         }
         Map<String, Object> docs = doctorService.filterDoctorsByNameSpecialtyandTime(name, specialty, amOrPm);
@@ -125,34 +105,20 @@ public class UtilityService {
 // - Then, it retrieves the list of available time slots for the doctor on the specified date.
 // - It compares the requested appointment time with the start times of these slots.
 // - If a match is found, it returns 1 (valid appointment time).
-// - If no matching time slot is found, it returns 0 (invalid).
+// - If the matching slot is already booked, it returns 0.
+// - If no matching time slot is found, it returns -2 (the doctor doesn't offer that time).
 // - If the doctor doesn’t exist, it returns -1.
 // This logic prevents overlapping or invalid appointment bookings.
     public int validateAppointment(Appointment appointment) {
         Long doctorId = appointment.getDoctor().getId();
 
-        // Step 1: Check if doctor exists
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
-        if (doctorOpt.isEmpty()) {
-            return -1; // Doctor doesn't exist
-        }
-
-        // Step 2: Get appointment date and time (formatted as "HH:mm")
-        LocalDate date = appointment.getAppointmentDate();
-        String appointmentTimeStr = appointment.getAppointmentTimeOnly().format(DateTimeFormatter.ofPattern("HH:mm"));
-        LocalTime endTime = appointment.getAppointmentTimeOnly().plusHours(1);
-        String endTimeStr = endTime.format(DateTimeFormatter.ofPattern("HH:mm"));
-        String range = appointmentTimeStr + "-" + endTimeStr;
-
-        // Step 3: Fetch available time slots for the doctor on that date
-        List<String> availableSlots = doctorService.getDoctorAvailability(doctorId, date);
+        // Step 1/2: Turn the requested start into the one-hour slot it would occupy
+        LocalTime start = appointment.getAppointmentTimeOnly();
+        int slot = TimeSlot.oneHourFrom(start.getHour() * 60 + start.getMinute());
 
-        // Step 4: Check if the desired time is in the available slots
-        if (availableSlots.contains(range)) {
-            return 1; // Valid time
-        } else {
-            return 0; // Time unavailable
-        }
+        // Step 3/4: The availability index knows both the doctor's slots and what is already booked;
+        // it answers -1 for an unknown doctor, 1 for a free slot, 0 for a booked one and -2 for a time not offered
+        return doctorService.checkSlotAvailability(doctorId, appointment.getAppointmentDate(), slot);
     }
 
     // 7. **validatePatient Method**
@@ -200,20 +166,16 @@ public class UtilityService {
 // - Depending on which filters (condition, doctor name) are provided, it delegates the filtering logic to PatientService.
 // - If no filters are provided, it retrieves all appointments for the patient.
 // This flexible method supports patient-specific querying and enhances user experience on the client side.
-    public ResponseEntity<Map<String, Object>> filterPatient(String condition, String name, String token) {
+    public ResponseEntity<Map<String, Object>> filterPatient(String condition, String name, AuthPrincipal principal) {
         Map<String, Object> resp = new HashMap<>();
 
-        // Step 1: Extract patient from token
-        String email = tokenService.extractEmail(token);
-        Patient pat = patientRepository.findByEmail(email);
-
-        // Step 2: If patient doesn't exist, return error
-        if (pat == null) {
+        // Step 1/2: The principal already carries the patient id; anyone else is not a patient
+        if (principal == null || !principal.hasRole("patient")) {
             resp.put("error", "Patient not found");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(resp);
         }
 
-        Long patientId = pat.getId();
+        Long patientId = principal.getId();
 
         // Step 3: Delegate filtering logic based on inputs
         if (!condition.equals("null") && !name.equals("null")) {
@@ -223,7 +185,7 @@ public class UtilityService {
         } else if (!name.equals("null")) {
             return patientService.filterByDoctor(name, patientId);
         } else {
-            return patientService.getPatientAppointment(patientId, token);
+            return patientService.getPatientAppointment(patientId, principal);
         }
     }
 
@@ -0,0 +1,100 @@
+package com.project.back_end.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.project.back_end.DTO.AuthPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of tokens whose signature and user have already been verified.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token (the raw token is never kept) and expire at
+ * the earlier of the JWT {@code exp} and the configured TTL, so a user that disappears is noticed
+ * at most one TTL later even without an explicit {@link #invalidateUser(String)}.
+ * <p>
+ * The entries live in a Caffeine cache with a per-entry expiry and a maximum size, so a full cache
+ * evicts in amortized constant time instead of scanning every entry on each insert.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, Entry> entries;
+    private final long ttlMillis;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                              @Value("${jwt.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return remainingNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return remainingNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Return the principal a token was verified for, or null when it is unknown or expired.
+     */
+    public AuthPrincipal get(String token) {
+        Entry cached = entries.getIfPresent(digest(token));
+        return cached != null ? cached.principal() : null;
+    }
+
+    /**
+     * Remember a verified token until its JWT expiry or the cache TTL, whichever comes first.
+     */
+    public void put(String token, AuthPrincipal principal, long jwtExpiresAt) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(jwtExpiresAt, now + ttlMillis);
+        if (expiresAt <= now) {
+            return;
+        }
+        entries.put(digest(token), new Entry(principal, expiresAt));
+    }
+
+    /**
+     * Forget every cached token issued to the given email/username, e.g. after the user was deleted.
+     */
+    public void invalidateUser(String email) {
+        if (email != null) {
+            entries.asMap().values().removeIf(entry -> email.equals(entry.principal().getEmail()));
+        }
+    }
+
+    private static long remainingNanos(Entry entry) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(AuthPrincipal principal, long expiresAt) {
+    }
+}
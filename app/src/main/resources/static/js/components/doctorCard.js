@@ -4,7 +4,7 @@
 import { showBookingOverlay } from "/js/loggedPatient.js";
 
 // Import the deleteDoctor API function to remove doctors (admin role)
-import { deleteDoctor } from "/js/services/doctorServices.js";
+import { deleteDoctor, getDeletionJob } from "/js/services/doctorServices.js";
 
 // Import function to fetch patient details (used during booking)
 import { getPatientData } from "/js/services/patientServices.js";
@@ -65,14 +65,15 @@ export function createDoctorCard(doctor) {
         const token = localStorage.getItem("token");
 
         // Call API to delete the doctor
-        const success = await deleteDoctor(doctor.id, token);
+        const result = await deleteDoctor(doctor.id, token);
 
-        // Show result and remove card if successful
-        if (success) {
-          alert("Doctor deleted successfully.");
-          card.remove();
+        // The deletion runs in the background: show its progress and remove the card once it is done
+        if (result.success) {
+          deleteBtn.disabled = true;
+          deleteBtn.textContent = "Deleting...";
+          followDeletion(result.jobId, token, card, deleteBtn);
         } else {
-          alert("Failed to delete doctor.");
+          alert(result.message || "Failed to delete doctor.");
         }
       } catch (error) {
         console.error("Delete error:", error);
@@ -140,3 +141,27 @@ export function createDoctorCard(doctor) {
   // Return the complete doctor card element
   return card;
 }
+
+// Poll a doctor deletion job until it is done, showing how many appointments are gone so far
+function followDeletion(jobId, token, card, deleteBtn) {
+  const timer = setInterval(async () => {
+    const job = await getDeletionJob(jobId, token);
+    if (!job) {
+      return;
+    }
+    if (job.status === "DONE") {
+      clearInterval(timer);
+      card.remove();
+      return;
+    }
+    if (job.status === "FAILED") {
+      clearInterval(timer);
+      deleteBtn.disabled = false;
+      deleteBtn.textContent = "Delete";
+      alert(`Deleting the doctor failed: ${job.lastError || "unknown error"}. You can try again.`);
+      return;
+    }
+    deleteBtn.textContent = `Deleting... (${job.appointmentsDeleted} appointments)`;
+    deleteBtn.title = job.lastError || "";
+  }, 2000);
+}
@@ -1,4 +1,4 @@
-import { getAllAppointments } from './services/appointmentRecordService.js';
+import { getAllAppointments, openAppointmentFeed } from './services/appointmentRecordService.js';
 import { createPatientRow } from './components/patientRows.js';
 import { renderContent } from './render.js';
 
@@ -6,43 +6,85 @@ import { renderContent } from './render.js';
 let selectedDate = new Date().toISOString().split('T')[0]; // 'YYYY-MM-DD'
 let token = localStorage.getItem('token');
 let patientName = null;
+// the whole selected day; the search bar filters it locally and the feed keeps it current
+let dayAppointments = [];
+let feed = null;
 
-// Function: Load and Display Appointments
+// Function: Load the Day and Display Appointments
 async function loadAppointments() {
   const tableBody = document.querySelector('#appointmentsTable tbody');
   try {
-    const { appointments } = await getAllAppointments(selectedDate, patientName, token);
-
-    tableBody.innerHTML = '';
-
-    if (!appointments || appointments.length === 0) {
-      const row = document.createElement('tr');
-      row.innerHTML = `<td colspan="4">No Appointments found for today.</td>`;
-      tableBody.appendChild(row);
-      return;
+    const date = selectedDate;
+    const { appointments } = await getAllAppointments(date, null, token);
+    if (date !== selectedDate) {
+      return; // the user already moved to another day
     }
-    const doctorId = appointments[0].doctorId;
-
-    appointments.forEach(app => {
-    const patientObj = app.patient;
-      const patient = {
-        id: app.patientId,
-        name: app.patientName,
-        phone: app.patientPhone,
-        email: app.patientEmail
-      };
-      const row = createPatientRow(patient, app, doctorId);
-      tableBody.appendChild(row);
-    });
-
+    dayAppointments = appointments || [];
+    renderAppointments();
   } catch (error) {
     console.error('Error fetching appointments:', error);
+    tableBody.innerHTML = '';
     const row = document.createElement('tr');
     row.innerHTML = `<td colspan="4">Error loading appointments. Try again later.</td>`;
     tableBody.appendChild(row);
   }
 }
 
+// Function: Display the Loaded Appointments Matching the Search
+function renderAppointments() {
+  const tableBody = document.querySelector('#appointmentsTable tbody');
+  const filter = patientName ? patientName.toLowerCase() : null;
+  const appointments = filter
+    ? dayAppointments.filter(app => (app.patientName || '').toLowerCase().includes(filter))
+    : dayAppointments;
+
+  tableBody.innerHTML = '';
+
+  if (appointments.length === 0) {
+    const row = document.createElement('tr');
+    row.innerHTML = `<td colspan="4">No Appointments found for today.</td>`;
+    tableBody.appendChild(row);
+    return;
+  }
+  const doctorId = appointments[0].doctorId;
+
+  appointments.forEach(app => {
+    const patient = {
+      id: app.patientId,
+      name: app.patientName,
+      phone: app.patientPhone,
+      email: app.patientEmail
+    };
+    const row = createPatientRow(patient, app, doctorId);
+    tableBody.appendChild(row);
+  });
+}
+
+// Function: Apply a Pushed Change to the Loaded Day
+function applyChange(type, change) {
+  dayAppointments = dayAppointments.filter(app => app.id !== change.appointmentId);
+  if (type !== 'cancelled' && change.appointment) {
+    dayAppointments.push(change.appointment);
+    dayAppointments.sort((a, b) => String(a.appointmentTime).localeCompare(String(b.appointmentTime)));
+  }
+  renderAppointments();
+}
+
+// Function: Follow Changes to the Selected Day
+function subscribe() {
+  if (feed) {
+    feed.close();
+  }
+  feed = openAppointmentFeed(selectedDate, token, applyChange, loadAppointments);
+}
+
+// Function: Switch to Another Day
+function showDay(date) {
+  selectedDate = date;
+  subscribe();
+  loadAppointments();
+}
+
 // ✅ Delay all DOM-related work until DOM is ready
 document.addEventListener('DOMContentLoaded', () => {
   renderContent();
@@ -64,20 +106,18 @@ document.addEventListener('DOMContentLoaded', () => {
   searchBar.addEventListener('input', () => {
     const input = searchBar.value.trim();
     patientName = input !== '' ? input : null;
-    loadAppointments();
+    renderAppointments();
   });
 
   todayButton.addEventListener('click', () => {
-    selectedDate = new Date().toISOString().split('T')[0];
-    datePicker.value = selectedDate;
-    loadAppointments();
+    datePicker.value = new Date().toISOString().split('T')[0];
+    showDay(datePicker.value);
   });
 
   datePicker.addEventListener('change', () => {
-    selectedDate = datePicker.value;
-    loadAppointments();
+    showDay(datePicker.value);
   });
 
   // Initial load
-  loadAppointments();
+  showDay(selectedDate);
 });
@@ -26,7 +26,8 @@ export async function bookAppointment(appointment, token) {
     const data = await response.json();
     return {
       success: response.ok,
-      message: data.message || "Something went wrong"
+      // a 409 means someone else just took the slot; the server explains in `error`
+      message: data.message || data.error || "Something went wrong"
     };
   } catch (error) {
     console.error("Error while booking appointment:", error);
@@ -50,7 +51,8 @@ export async function updateAppointment(appointment, token) {
     const data = await response.json();
     return {
       success: response.ok,
-      message: data.message || "Something went wrong"
+      // a 409 means someone else just took the slot; the server explains in `error`
+      message: data.message || data.error || "Something went wrong"
     };
   } catch (error) {
     console.error("Error while booking appointment:", error);
@@ -60,3 +62,21 @@ export async function updateAppointment(appointment, token) {
     };
   }
 }
+
+// Opens the doctor's live feed of appointment changes for one day.
+// onChange receives (type, change) for "added", "updated" and "cancelled" events;
+// onReconnect runs after the browser re-established a dropped stream, when changes may have been missed.
+export function openAppointmentFeed(date, token, onChange, onReconnect) {
+  const source = new EventSource(`${APPOINTMENT_API}/stream/${date}/${token}`);
+  let opened = false;
+  source.onopen = () => {
+    if (opened && onReconnect) {
+      onReconnect();
+    }
+    opened = true;
+  };
+  ["added", "updated", "cancelled"].forEach(type => {
+    source.addEventListener(type, event => onChange(type, JSON.parse(event.data)));
+  });
+  return source;
+}
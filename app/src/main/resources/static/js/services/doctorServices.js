@@ -21,6 +21,7 @@ export async function getDoctors() {
 
 // === Function: deleteDoctor ===
 // Purpose: Delete a specific doctor using their ID and a token
+// The deletion runs in the background; jobId identifies it for getDeletionJob
 export async function deleteDoctor(doctorId, token) {
   try {
     const res = await fetch(`${DOCTOR_API}/delete/${doctorId}/${token}`, {
@@ -29,7 +30,8 @@ export async function deleteDoctor(doctorId, token) {
     const data = await res.json();
     return {
       success: res.ok,
-      message: data.message || "Doctor deleted.",
+      message: data.message || data.error || "Doctor deleted.",
+      jobId: data.jobId,
     };
   } catch (error) {
     console.error("Error deleting doctor:", error);
@@ -40,6 +42,19 @@ export async function deleteDoctor(doctorId, token) {
   }
 }
 
+// === Function: getDeletionJob ===
+// Purpose: Fetch the progress of a doctor deletion job (status, appointmentsDeleted, prescriptionsDeleted, lastError)
+export async function getDeletionJob(jobId, token) {
+  try {
+    const res = await fetch(`${DOCTOR_API}/delete/jobs/${jobId}/${token}`);
+    const data = await res.json();
+    return res.ok ? data.job : null;
+  } catch (error) {
+    console.error("Error fetching deletion job:", error);
+    return null;
+  }
+}
+
 // === Function: saveDoctor ===
 // Purpose: Create a new doctor (admin only)
 export async function saveDoctor(doctor, token) {
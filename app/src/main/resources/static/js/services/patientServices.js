@@ -94,6 +94,26 @@ export async function getPatientAppointments(id, token, user) {
   }
 }
 
+/**
+ * Get Patient Dashboard
+ * Patient details, their appointments and the prescriptions per appointment in one request.
+ * @param {String} token - Auth token
+ * @returns {Object|null} - { patient, appointments, prescriptions } or null if failed
+ */
+export async function getPatientDashboard(token) {
+  try {
+    const response = await fetch(`${PATIENT_API}/dashboard`, {
+    headers: {
+    "Authorization": `Bearer ${token}`
+    }});
+    const data = await response.json();
+    return response.ok ? data : null;
+  } catch (error) {
+    console.error("Error fetching patient dashboard:", error);
+    return null;
+  }
+}
+
 /**
  * Filter Appointments
  * Filters appointments by condition and patient/doctor name.
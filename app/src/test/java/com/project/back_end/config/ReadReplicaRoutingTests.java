@@ -0,0 +1,102 @@
+package com.project.back_end.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between two embedded H2 databases, each holding a one-row {@code marker} table naming itself,
+ * so every query shows which side answered it. The replica's lag comes from a table the test controls.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReadReplicaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTests.PRIMARY_URL,
+        "datasource.replica.url=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+        "datasource.replica.lag-column=seconds",
+        "datasource.replica.max-lag-seconds=5",
+        "datasource.replica.lag-check-interval-ms=3600000"
+})
+class ReadReplicaRoutingTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void seed() {
+        JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+        for (JdbcTemplate db : new JdbcTemplate[] {primary, replica}) {
+            db.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(16))");
+            db.update("DELETE FROM marker");
+        }
+        primary.update("INSERT INTO marker VALUES ('primary')");
+        replica.update("INSERT INTO marker VALUES ('replica')");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (seconds BIGINT)");
+        replica.update("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        lagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertThat(marker(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionsAndNonTransactionalCallsUsePrimary() {
+        assertThat(marker(false)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM marker", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replica.update("UPDATE replica_lag SET seconds = 30");
+        lagMonitor.check();
+        assertThat(lagMonitor.getLagSeconds()).isEqualTo(30);
+        assertThat(marker(true)).isEqualTo("primary");
+
+        replica.update("UPDATE replica_lag SET seconds = 1");
+        lagMonitor.check();
+        assertThat(marker(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void stoppedReplicationFallsBackToPrimary() {
+        replica.update("UPDATE replica_lag SET seconds = NULL");
+        lagMonitor.check();
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+        assertThat(marker(true)).isEqualTo("primary");
+    }
+
+    private String marker(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM marker", String.class));
+    }
+}
@@ -0,0 +1,105 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the indexes declared on the entities are the ones the embedded DB's planner picks
+ * for the lookups the repositories run on every request.
+ */
+@DataJpaTest
+class IndexUsageTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        List<Doctor> doctors = new ArrayList<>();
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty("Cardiologist");
+            doctor.setEmail("doctor" + i + "@example.com");
+            doctor.setPassword("secret" + i);
+            doctor.setPhone(String.format("555%07d", i));
+            doctor.setAvailableTimes(List.of("09:00-10:00", "14:00-15:00"));
+            doctors.add(entityManager.persist(doctor));
+
+            Patient patient = new Patient();
+            patient.setName("Patient " + i);
+            patient.setEmail("patient" + i + "@example.com");
+            patient.setPassword("secret" + i);
+            patient.setPhone(String.format("666%07d", i));
+            patient.setAddress("Street " + i);
+            patients.add(entityManager.persist(patient));
+
+            Admin admin = new Admin();
+            admin.setUsername("admin" + i);
+            admin.setPassword("secret" + i);
+            entityManager.persist(admin);
+        }
+        for (int i = 0; i < 400; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setDoctor(doctors.get(i % doctors.size()));
+            appointment.setPatient(patients.get((i * 7) % patients.size()));
+            appointment.setAppointmentTime(BASE.plusHours(i));
+            appointment.setStatus(i % 2);
+            entityManager.persist(appointment);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void doctorDayQueryUsesDoctorTimeIndex() {
+        assertThat(explain("SELECT * FROM appointment WHERE doctor_id = 1 AND appointment_time BETWEEN '"
+                + BASE + "' AND '" + BASE.plusDays(1) + "'"))
+                .contains("uk_appointment_doctor_time");
+    }
+
+    @Test
+    void patientStatusQueryUsesPatientStatusTimeIndex() {
+        assertThat(explain("SELECT * FROM appointment WHERE patient_id = 1 AND status = 0 ORDER BY appointment_time"))
+                .contains("idx_appointment_patient_status_time");
+    }
+
+    @Test
+    void elapsedQueryUsesStatusTimeIndex() {
+        assertThat(explain("SELECT MIN(appointment_time) FROM appointment WHERE status = 0 AND appointment_time < '" + BASE.plusHours(10) + "'"))
+                .contains("idx_appointment_status_time");
+    }
+
+    @Test
+    void loginLookupsUseUniqueIndexes() {
+        assertThat(explain("SELECT * FROM doctor WHERE email = 'doctor3@example.com'")).contains("uk_doctor_email");
+        assertThat(explain("SELECT * FROM patient WHERE email = 'patient3@example.com'")).contains("uk_patient_email");
+        assertThat(explain("SELECT * FROM patient WHERE phone = '6660000003'")).contains("uk_patient_phone");
+        assertThat(explain("SELECT * FROM admin WHERE username = 'admin3'")).contains("uk_admin_username");
+    }
+
+    // H2 names the index it picked in a comment after each table, e.g. "/* PUBLIC.UK_DOCTOR_EMAIL_INDEX_7: EMAIL = ... */"
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toLowerCase(Locale.ROOT);
+    }
+}